@@ -0,0 +1,102 @@
+package org.cyb.di;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(4)
+@Fork(1)
+public class ResolutionBenchmark {
+    static final int Settings = 64;
+
+    @Singleton
+    public static class Repository {
+        @Inject
+        public Repository() {
+        }
+    }
+
+    public static class Service {
+        public final Repository repository;
+
+        @Inject
+        public Service(Repository repository) {
+            this.repository = repository;
+        }
+    }
+
+    public static class Consumer {
+        @Inject
+        public Provider<Service> services;
+    }
+
+    public static class Setting {
+    }
+
+    static final ComponentRef<Repository> repository = ComponentRef.of(Repository.class);
+    static final ComponentRef<Service> service = ComponentRef.of(Service.class);
+    static final ComponentRef<Provider<Service>> provider = new ComponentRef<>() {
+    };
+    static final ComponentRef<Setting>[] settings = new ComponentRef[Settings];
+
+    Context context;
+    Consumer consumer;
+
+    @Setup
+    public void setup() {
+        ContextConfig config = new ContextConfig();
+        config.component(Repository.class, Repository.class);
+        config.component(Service.class, Service.class);
+        config.component(Consumer.class, Consumer.class);
+        for (int i = 0; i < Settings; i++) {
+            Named named = new SyntheticGraph.NamedLiteral("setting-" + i);
+            config.instance(Setting.class, new Setting(), named);
+            settings[i] = ComponentRef.of(Setting.class, named);
+        }
+        context = config.getContext();
+        consumer = context.get(ComponentRef.of(Consumer.class)).get();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        ComponentRef<Setting> setting() {
+            return settings[next++ & (Settings - 1)];
+        }
+    }
+
+    @Benchmark
+    public Repository singleton() {
+        return context.get(repository).get();
+    }
+
+    @Benchmark
+    public Service prototype() {
+        return context.get(service).get();
+    }
+
+    @Benchmark
+    public Service providerLookup() {
+        return context.get(provider).get().get();
+    }
+
+    @Benchmark
+    public Service providerInjected() {
+        return consumer.services.get();
+    }
+
+    @Benchmark
+    public Setting qualified(Cursor cursor) {
+        return context.get(cursor.setting()).get();
+    }
+}
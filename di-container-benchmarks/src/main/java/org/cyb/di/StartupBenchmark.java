@@ -0,0 +1,44 @@
+package org.cyb.di;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+    @Param({"100", "10000", "100000"})
+    int size;
+
+    ContextConfig prototypes;
+
+    @Setup
+    public void setup() {
+        prototypes = SyntheticGraph.of(size, false);
+    }
+
+    @State(Scope.Thread)
+    public static class Singletons {
+        ContextConfig config;
+
+        @Setup(Level.Invocation)
+        public void setup(StartupBenchmark benchmark) {
+            config = SyntheticGraph.of(benchmark.size, true);
+        }
+    }
+
+    @Benchmark
+    public Context getContext() {
+        return prototypes.getContext();
+    }
+
+    @Benchmark
+    public Context getContextEager(Singletons singletons) {
+        return singletons.config.getContext(ForkJoinPool.commonPool());
+    }
+}
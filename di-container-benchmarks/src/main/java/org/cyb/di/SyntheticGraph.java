@@ -0,0 +1,77 @@
+package org.cyb.di;
+
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+
+final class SyntheticGraph {
+    private SyntheticGraph() {
+    }
+
+    public static ContextConfig of(int size, boolean singleton) {
+        ContextConfig config = new ContextConfig();
+        for (int i = 0; i < size; i++) {
+            NodeProvider provider = new NodeProvider(dependencies(i));
+            if (singleton) config.provider(Node.class, provider, named(i), new SingletonLiteral());
+            else config.provider(Node.class, provider, named(i));
+        }
+        return config;
+    }
+
+    public static ComponentRef<Node> node(int index) {
+        return ComponentRef.of(Node.class, named(index));
+    }
+
+    private static List<ComponentRef<?>> dependencies(int index) {
+        List<ComponentRef<?>> dependencies = new ArrayList<>();
+        if (index > 0) dependencies.add(node(index - 1));
+        if (index > 1 && index / 2 != index - 1) dependencies.add(node(index / 2));
+        return List.copyOf(dependencies);
+    }
+
+    private static Named named(int index) {
+        return new NamedLiteral("node-" + index);
+    }
+
+    public record Node(Object[] dependencies) {
+    }
+
+    private record NodeProvider(List<ComponentRef<?>> dependencies) implements ComponentProvider<Node> {
+        @Override
+        public Node get(Context context) {
+            return new Node(dependencies.stream().map(context::get).map(o -> o.get()).toArray());
+        }
+
+        @Override
+        public List<ComponentRef<?>> getDependencies() {
+            return dependencies;
+        }
+    }
+
+    public record NamedLiteral(String value) implements Named {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Named.class;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Named named && value.equals(named.value());
+        }
+
+        @Override
+        public int hashCode() {
+            return "value".hashCode() * 127 ^ value.hashCode();
+        }
+    }
+
+    private record SingletonLiteral() implements Singleton {
+        @Override
+        public Class<? extends Annotation> annotationType() {
+            return Singleton.class;
+        }
+    }
+}
@@ -2,7 +2,7 @@ package org.cyb.di;
 
 import java.util.List;
 
-interface ComponentProvider<T> {
+public interface ComponentProvider<T> {
     T get(Context context);
 
     default List<ComponentRef<?>> getDependencies() {
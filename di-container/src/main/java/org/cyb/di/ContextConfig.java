@@ -1,14 +1,20 @@
 package org.cyb.di;
 
-import jakarta.inject.Provider;
 import jakarta.inject.Qualifier;
 import jakarta.inject.Scope;
 import jakarta.inject.Singleton;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.net.URL;
+import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -17,11 +23,22 @@ import static java.util.stream.Collectors.*;
 import static org.cyb.di.ContextConfigException.illegalAnnotation;
 
 public class ContextConfig {
+    private static final String ProviderIndex = "META-INF/org.cyb.di.providers";
+    private static final Map<ClassLoader, Map<String, String>> providerIndexes = new WeakHashMap<>();
+    private static final ReentrantLock providerIndexLock = new ReentrantLock();
+
     private Map<Component, ComponentProvider<?>> components = new HashMap<>();
     private Map<Class<?>, ScopeProvider> scopes = new HashMap<>();
+    private SingletonContention singletonContention = new SingletonContention();
+    private Map<Component, ContextSnapshot.Recipe> recipes = new HashMap<>();
+    private Set<Component> restored = Set.of();
 
     public ContextConfig() {
-        scope(Singleton.class, SingletonProvider::new);
+        scope(Singleton.class, provider -> new SingletonProvider<>(provider, singletonContention));
+    }
+
+    public SingletonContention getSingletonContention() {
+        return singletonContention;
     }
 
     public <Type> void instance(Class<Type> type, Type instance) {
@@ -35,25 +52,48 @@ public class ContextConfig {
         bindComponent(type, implementation, annotations);
     }
 
+    <Type> void provider(Class<Type> type, ComponentProvider<Type> provider, Annotation... annotations) {
+        Bindings bindings = Bindings.component(provider.getClass(), annotations);
+        bind(type, bindings.qualifiers(), bindings.scope().<ComponentProvider<?>>map(s -> scoped(s, provider)).orElse(provider));
+    }
+
     private void bindComponent(Class<?> type, Class<?> implementation, Annotation... annotations) {
         Bindings bindings = Bindings.component(implementation, annotations);
         bind(type, bindings.qualifiers(), provider(implementation, bindings.scope()));
+        recipe(type, bindings.qualifiers(), implementation, bindings.scope());
+    }
+
+    private void recipe(Class<?> type, List<Annotation> qualifiers, Class<?> implementation, Optional<Annotation> scope) {
+        ContextSnapshot.Recipe recipe = new ContextSnapshot.Recipe(implementation, scope.map(Annotation::annotationType).orElse(null));
+        if (qualifiers.isEmpty()) recipes.put(new Component(type, null), recipe);
+        for (Annotation qualifier : qualifiers) recipes.put(new Component(type, qualifier), recipe);
     }
 
     private <Type> ComponentProvider<?> provider(Class<Type> implementation, Optional<Annotation> scope) {
-        ComponentProvider<?> injectionProvider = new InjectProvider<>(implementation);
+        ComponentProvider<?> injectionProvider = injectionProvider(implementation);
         return scope.<ComponentProvider<?>>map(s -> scoped(s, injectionProvider)).orElse(injectionProvider);
     }
 
     private ComponentProvider<?> scoped(Annotation scope, ComponentProvider<?> provider) {
-        if (!scopes.containsKey(scope.annotationType()))
-            throw ContextConfigException.unknownScope(scope.annotationType());
-        return scopes.get(scope.annotationType()).create(provider);
+        return scoped(scope.annotationType(), provider);
+    }
+
+    private ComponentProvider<?> scoped(Class<? extends Annotation> scope, ComponentProvider<?> provider) {
+        if (!scopes.containsKey(scope))
+            throw ContextConfigException.unknownScope(scope);
+        return scopes.get(scope).create(provider);
     }
 
-    private void bind(Component component, ComponentProvider<?> provider) {
+    void bind(Component component, ComponentProvider<?> provider) {
         if (components.containsKey(component)) throw ContextConfigException.duplicated(component);
+        put(component, provider);
+    }
+
+    // any binding made after restore() invalidates the snapshot's dependency check
+    private void put(Component component, ComponentProvider<?> provider) {
         components.put(component, provider);
+        recipes.remove(component);
+        restored = Set.of();
     }
 
     private void bindInstance(Class<?> type, Object instance, Annotation[] annotations) {
@@ -65,7 +105,7 @@ public class ContextConfig {
     }
 
     public <T> void bind(Class<T> type, T instance) {
-        components.put(new Component(type, null), (ComponentProvider<T>) context -> instance);
+        put(new Component(type, null), (ComponentProvider<T>) context -> instance);
     }
 
     public <T> void bind(Class<T> type, T instance, Annotation... annotations) {
@@ -75,7 +115,7 @@ public class ContextConfig {
         }
 
         for (Annotation qualifier : annotations) {
-            components.put(new Component(type, qualifier), context -> instance);
+            put(new Component(type, qualifier), context -> instance);
         }
     }
 
@@ -92,28 +132,66 @@ public class ContextConfig {
             throw new IllegalComponentException();
         }
 
-        bind(type, annotationGroups.getOrDefault(Qualifier.class, List.of()),
-                createScopedProvider(implementation, annotationGroups.getOrDefault(Scope.class, List.of()),
-                        new InjectProvider<U>(implementation)));
+        List<Annotation> qualifiers = annotationGroups.getOrDefault(Qualifier.class, List.of());
+        Optional<Annotation> scope = scopeOf(implementation, annotationGroups.getOrDefault(Scope.class, List.of()));
+        ComponentProvider<?> injectionProvider = injectionProvider(implementation);
+        bind(type, qualifiers, scope.<ComponentProvider<?>>map(s -> getScopeProvider(s, injectionProvider)).orElse(injectionProvider));
+        recipe(type, qualifiers, implementation, scope);
+    }
+
+    private static <T> ComponentProvider<T> injectionProvider(Class<T> implementation) {
+        return generatedProvider(implementation).orElseGet(() -> new InjectProvider<>(implementation));
+    }
+
+    private static <T> Optional<ComponentProvider<T>> generatedProvider(Class<T> implementation) {
+        ClassLoader loader = implementation.getClassLoader();
+        if (loader == null) return Optional.empty();
+        String provider = providerIndex(loader).get(implementation.getName());
+        if (provider == null) return Optional.empty();
+        try {
+            Class<?> generated = Class.forName(provider, true, loader);
+            return Optional.of((ComponentProvider<T>) generated.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Map<String, String> providerIndex(ClassLoader loader) {
+        providerIndexLock.lock();
+        try {
+            return providerIndexes.computeIfAbsent(loader, ContextConfig::loadProviderIndex);
+        } finally {
+            providerIndexLock.unlock();
+        }
+    }
+
+    private static Map<String, String> loadProviderIndex(ClassLoader loader) {
+        Map<String, String> index = new HashMap<>();
+        try {
+            for (URL resource : Collections.list(loader.getResources(ProviderIndex))) {
+                Properties providers = new Properties();
+                try (InputStream input = resource.openStream()) {
+                    providers.load(input);
+                }
+                providers.forEach((component, provider) -> index.put((String) component, (String) provider));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return index;
     }
 
-    private <T> ComponentProvider<?> createScopedProvider(Class<T> implementation, List<Annotation> scopes, ComponentProvider<?> injectionProvider) {
+    private <T> Optional<Annotation> scopeOf(Class<T> implementation, List<Annotation> scopes) {
         if (scopes.size() > 1) {
             throw new IllegalComponentException();
         }
-        Optional<Annotation> scope = scopes.stream().findFirst()
+        return scopes.stream().findFirst()
                 .or(() -> scopeFrom(implementation));
-        return scope.<ComponentProvider<?>>map(s -> getScopeProvider(s, injectionProvider))
-                .orElse(injectionProvider);
     }
 
     private <T> void bind(Class<T> type, List<Annotation> qualifiers, ComponentProvider<?> provider) {
-        if (qualifiers.isEmpty()) {
-            components.put(new Component(type, null), provider);
-        }
-        for (Annotation qualifier : qualifiers) {
-            components.put(new Component(type, qualifier), provider);
-        }
+        if (qualifiers.isEmpty()) put(new Component(type, null), provider);
+        for (Annotation qualifier : qualifiers) put(new Component(type, qualifier), provider);
     }
 
     private <T> Optional<Annotation> scopeFrom(Class<T> implementation) {
@@ -142,46 +220,97 @@ public class ContextConfig {
 
 
     public Context getContext() {
-        components.keySet().forEach(component -> checkDependencies(component, new Stack<>()));
-
-        return new Context() {
-            @Override
-            public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
-                if (ref.isContainer()) {
-                    if (ref.getContainer() != Provider.class) {
-                        return Optional.empty();
-                    }
-                    return (Optional<ComponentType>) Optional.ofNullable(getProvider(ref))
-                            .map(provider -> (Provider<Object>) () -> provider.get(this));
-                }
-                return Optional.ofNullable(getProvider(ref))
-                        .map(provider -> (ComponentType)provider.get(this));
+        return plan();
+    }
+
+    public Context getContext(ForkJoinPool eager) {
+        ResolutionPlan plan = plan();
+        plan.initialize(eager);
+        return plan;
+    }
+
+    public void snapshot(Path file) {
+        checkDependencies();
+        ContextSnapshot.write(file, components, recipes);
+    }
+
+    public void restore(Path file) {
+        ContextSnapshot snapshot = ContextSnapshot.read(file, Thread.currentThread().getContextClassLoader());
+        boolean unchanged = true;
+        for (ContextSnapshot.Entry entry : snapshot.entries()) {
+            ComponentProvider<?> provider = restoreProvider(entry);
+            unchanged &= entry.points().isPresent() && provider.getDependencies().stream().map(ContextSnapshot.Dependency::of).toList().equals(entry.dependencies());
+
+            ComponentProvider<?> scoped = entry.recipe().scope() == null ? provider : scoped(entry.recipe().scope(), provider);
+            for (Component component : entry.components()) {
+                bind(component, scoped);
+                recipes.put(component, entry.recipe());
             }
-        };
+        }
+        restored = unchanged ? snapshot.components() : Set.of();
+    }
+
+    private <T> ComponentProvider<T> restoreProvider(ContextSnapshot.Entry entry) {
+        Class<T> implementation = (Class<T>) entry.recipe().implementation();
+        return generatedProvider(implementation)
+                .or(() -> entry.points().map(points -> new InjectProvider<>((InjectProvider.InjectionPoints<T>) points)))
+                .orElseGet(() -> new InjectProvider<>(implementation));
     }
 
-    private <ComponentType> ComponentProvider<?> getProvider(ComponentRef<ComponentType> ref) {
-        return components.get(ref.component());
+    private ResolutionPlan plan() {
+        if (restored.isEmpty() || !restored.equals(components.keySet())) checkDependencies();
+
+        return new ResolutionPlan(components);
+    }
+
+    private void checkDependencies() {
+        Map<Component, Boolean> checked = new HashMap<>();
+        for (Component component : components.keySet())
+            if (!checked.containsKey(component)) checkDependencies(component, checked);
     }
 
-    private void checkDependencies(Component component, Stack<Component> visiting) {
-        for (ComponentRef dependency : components.get(component).getDependencies()) {
+    private void checkDependencies(Component root, Map<Component, Boolean> checked) {
+        Deque<Component> visiting = new ArrayDeque<>();
+        Deque<Iterator<ComponentRef<?>>> pending = new ArrayDeque<>();
+        visit(root, checked, visiting, pending);
+
+        while (!pending.isEmpty()) {
+            if (!pending.peek().hasNext()) {
+                pending.pop();
+                checked.put(visiting.pop(), true);
+                continue;
+            }
+            ComponentRef<?> dependency = pending.peek().next();
             if (!components.containsKey(dependency.component())) {
-                throw new DependencyNotFoundException(dependency.component(), component);
+                throw new DependencyNotFoundException(dependency.component(), visiting.peek());
             }
+            if (dependency.isContainer()) continue;
 
-            if (!dependency.isContainer()) {
-                if (visiting.contains(dependency.component())) {
-                    throw new CyclicDependenciesFound(visiting);
-                }
-
-                visiting.push(dependency.component());
-                checkDependencies(dependency.component(), visiting);
-                visiting.pop();
+            Boolean done = checked.get(dependency.component());
+            if (done == null) {
+                visit(dependency.component(), checked, visiting, pending);
+            } else if (!done) {
+                throw new CyclicDependenciesFound(cycle(visiting, dependency.component()));
             }
         }
     }
 
+    private void visit(Component component, Map<Component, Boolean> checked, Deque<Component> visiting, Deque<Iterator<ComponentRef<?>>> pending) {
+        checked.put(component, false);
+        visiting.push(component);
+        pending.push(components.get(component).getDependencies().iterator());
+    }
+
+    private static List<Component> cycle(Deque<Component> visiting, Component circular) {
+        List<Component> path = new ArrayList<>();
+        for (Component component : visiting) {
+            path.add(component);
+            if (component.equals(circular)) break;
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
     static class Bindings {
         public static Bindings component(Class component, Annotation... annotations) {
             return new Bindings(component, annotations, Qualifier.class, Scope.class);
@@ -0,0 +1,310 @@
+package org.cyb.di;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.CRC32;
+
+import static java.util.Arrays.stream;
+
+class ContextSnapshot {
+    private static final int Magic = 0x43594244;
+    private static final int Version = 1;
+    private static final Map<String, Class<?>> primitives = Map.of("boolean", boolean.class, "byte", byte.class,
+            "char", char.class, "short", short.class, "int", int.class, "long", long.class,
+            "float", float.class, "double", double.class, "void", void.class);
+
+    record Recipe(Class<?> implementation, Class<? extends Annotation> scope) {
+    }
+
+    record Dependency(Component component, Class<?> container) {
+        static Dependency of(ComponentRef<?> ref) {
+            return new Dependency(ref.component(), ref.isContainer() ? (Class<?>) ref.getContainer() : null);
+        }
+    }
+
+    record Entry(Recipe recipe, List<Component> components, Optional<InjectProvider.InjectionPoints<?>> points,
+                 List<Dependency> dependencies) {
+    }
+
+    private final List<Component> components;
+    private final List<Entry> entries;
+
+    private ContextSnapshot(List<Component> components, List<Entry> entries) {
+        this.components = components;
+        this.entries = entries;
+    }
+
+    Set<Component> components() {
+        return new HashSet<>(components);
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    static void write(Path file, Map<Component, ComponentProvider<?>> components, Map<Component, Recipe> recipes) {
+        List<Component> keys = new ArrayList<>(components.keySet());
+        Map<Component, Integer> ids = new HashMap<>();
+        keys.forEach(key -> ids.put(key, ids.size()));
+
+        Map<ComponentProvider<?>, List<Component>> shared = new IdentityHashMap<>();
+        for (Component key : keys)
+            if (recipes.containsKey(key)) shared.computeIfAbsent(components.get(key), p -> new ArrayList<>()).add(key);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(Magic);
+            out.writeInt(Version);
+            out.writeInt(keys.size());
+            for (Component key : keys) {
+                out.writeUTF(key.type().getName());
+                writeQualifier(out, key.qualifier());
+            }
+
+            out.writeInt(shared.size());
+            for (Map.Entry<ComponentProvider<?>, List<Component>> entry : shared.entrySet()) {
+                Recipe recipe = recipes.get(entry.getValue().get(0));
+                out.writeUTF(recipe.implementation().getName());
+                out.writeUTF(recipe.scope() == null ? "" : recipe.scope().getName());
+                out.writeLong(fingerprint(recipe.implementation()));
+                writePoints(out, InjectProvider.injectionPoints(recipe.implementation()));
+
+                out.writeInt(entry.getValue().size());
+                for (Component key : entry.getValue()) out.writeInt(ids.get(key));
+
+                List<ComponentRef<?>> dependencies = entry.getKey().getDependencies();
+                out.writeInt(dependencies.size());
+                for (ComponentRef<?> dependency : dependencies) {
+                    out.writeInt(ids.get(dependency.component()));
+                    out.writeUTF(dependency.isContainer() ? ((Class<?>) dependency.getContainer()).getName() : "");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static ContextSnapshot read(Path file, ClassLoader loader) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != Magic || in.readInt() != Version)
+                throw new IOException("Not a context snapshot: " + file);
+
+            List<Component> keys = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--)
+                keys.add(new Component(type(in.readUTF(), loader), readQualifier(in, loader)));
+
+            List<Entry> entries = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                Class<?> implementation = type(in.readUTF(), loader);
+                String scope = in.readUTF();
+                long fingerprint = fingerprint(implementation);
+                boolean fresh = in.readLong() == fingerprint && fingerprint != 0;
+                Optional<InjectProvider.InjectionPoints<?>> points = readPoints(in, implementation, loader, fresh);
+
+                List<Component> bound = new ArrayList<>();
+                for (int j = in.readInt(); j > 0; j--) bound.add(keys.get(in.readInt()));
+
+                List<Dependency> dependencies = new ArrayList<>();
+                for (int j = in.readInt(); j > 0; j--) {
+                    Component dependency = keys.get(in.readInt());
+                    String container = in.readUTF();
+                    dependencies.add(new Dependency(dependency, container.isEmpty() ? null : type(container, loader)));
+                }
+
+                Recipe recipe = new Recipe(implementation, scope.isEmpty() ? null : (Class<? extends Annotation>) type(scope, loader));
+                entries.add(new Entry(recipe, bound, points, dependencies));
+            }
+            return new ContextSnapshot(keys, entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writePoints(DataOutput out, InjectProvider.InjectionPoints<?> points) throws IOException {
+        writeTypes(out, points.constructor().element().getParameterTypes());
+        out.writeInt(points.fields().size());
+        for (InjectProvider.Injectable<Field> field : points.fields()) {
+            out.writeUTF(field.element().getDeclaringClass().getName());
+            out.writeUTF(field.element().getName());
+        }
+        out.writeInt(points.methods().size());
+        for (InjectProvider.Injectable<Method> method : points.methods()) {
+            out.writeUTF(method.element().getDeclaringClass().getName());
+            out.writeUTF(method.element().getName());
+            writeTypes(out, method.element().getParameterTypes());
+        }
+    }
+
+    private static Optional<InjectProvider.InjectionPoints<?>> readPoints(DataInput in, Class<?> implementation, ClassLoader loader, boolean fresh) throws IOException {
+        Class<?>[] parameters = readTypes(in, loader);
+        List<String[]> fields = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) fields.add(new String[]{in.readUTF(), in.readUTF()});
+        List<Object[]> methods = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) methods.add(new Object[]{in.readUTF(), in.readUTF(), readTypes(in, loader)});
+        if (!fresh) return Optional.empty();
+
+        try {
+            List<Field> injectFields = new ArrayList<>();
+            for (String[] field : fields) injectFields.add(type(field[0], loader).getDeclaredField(field[1]));
+            List<Method> injectMethods = new ArrayList<>();
+            for (Object[] method : methods)
+                injectMethods.add(type((String) method[0], loader).getDeclaredMethod((String) method[1], (Class<?>[]) method[2]));
+            return Optional.of(InjectProvider.InjectionPoints.of(implementation.getDeclaredConstructor(parameters), injectFields, injectMethods));
+        } catch (NoSuchFieldException | NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void writeTypes(DataOutput out, Class<?>[] types) throws IOException {
+        out.writeInt(types.length);
+        for (Class<?> type : types) out.writeUTF(type.getName());
+    }
+
+    private static Class<?>[] readTypes(DataInput in, ClassLoader loader) throws IOException {
+        Class<?>[] types = new Class<?>[in.readInt()];
+        for (int i = 0; i < types.length; i++) types[i] = type(in.readUTF(), loader);
+        return types;
+    }
+
+    private static void writeQualifier(DataOutput out, Annotation qualifier) throws IOException {
+        out.writeBoolean(qualifier != null);
+        if (qualifier == null) return;
+        Method[] members = members(qualifier.annotationType());
+        out.writeUTF(qualifier.annotationType().getName());
+        out.writeInt(members.length);
+        for (Method member : members) {
+            out.writeUTF(member.getName());
+            try {
+                writeValue(out, member.invoke(qualifier));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static Annotation readQualifier(DataInput in, ClassLoader loader) throws IOException {
+        if (!in.readBoolean()) return null;
+        Class<? extends Annotation> type = (Class<? extends Annotation>) type(in.readUTF(), loader);
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = in.readInt(); i > 0; i--) values.put(in.readUTF(), readValue(in, loader));
+        return (Annotation) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new QualifierProxy(type, values));
+    }
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value instanceof String string) {
+            out.writeByte('s');
+            out.writeUTF(string);
+        } else if (value instanceof Class<?> type) {
+            out.writeByte('c');
+            out.writeUTF(type.getName());
+        } else if (value instanceof Enum<?> constant) {
+            out.writeByte('e');
+            out.writeUTF(constant.getDeclaringClass().getName());
+            out.writeUTF(constant.name());
+        } else if (value.getClass().isArray()) {
+            out.writeByte('[');
+            out.writeUTF(value.getClass().getComponentType().getName());
+            out.writeInt(Array.getLength(value));
+            for (int i = 0; i < Array.getLength(value); i++) writeValue(out, Array.get(value, i));
+        } else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            out.writeByte('p');
+            out.writeUTF(value.getClass().getName());
+            out.writeUTF(value.toString());
+        } else {
+            throw new IOException("Unsupported qualifier member: " + value);
+        }
+    }
+
+    private static Object readValue(DataInput in, ClassLoader loader) throws IOException {
+        switch (in.readByte()) {
+            case 's':
+                return in.readUTF();
+            case 'c':
+                return type(in.readUTF(), loader);
+            case 'e':
+                return Enum.valueOf((Class) type(in.readUTF(), loader), in.readUTF());
+            case '[': {
+                Class<?> component = type(in.readUTF(), loader);
+                Object array = Array.newInstance(component, in.readInt());
+                for (int i = 0; i < Array.getLength(array); i++) Array.set(array, i, readValue(in, loader));
+                return array;
+            }
+            case 'p': {
+                String type = in.readUTF();
+                String value = in.readUTF();
+                return switch (type) {
+                    case "java.lang.Boolean" -> Boolean.valueOf(value);
+                    case "java.lang.Character" -> value.charAt(0);
+                    case "java.lang.Byte" -> Byte.valueOf(value);
+                    case "java.lang.Short" -> Short.valueOf(value);
+                    case "java.lang.Integer" -> Integer.valueOf(value);
+                    case "java.lang.Long" -> Long.valueOf(value);
+                    case "java.lang.Float" -> Float.valueOf(value);
+                    default -> Double.valueOf(value);
+                };
+            }
+            default:
+                throw new IOException("Corrupted qualifier descriptor");
+        }
+    }
+
+    private static Method[] members(Class<? extends Annotation> type) {
+        return stream(type.getDeclaredMethods()).filter(Method::trySetAccessible)
+                .sorted(Comparator.comparing(Method::getName)).toArray(Method[]::new);
+    }
+
+    private static Class<?> type(String name, ClassLoader loader) throws IOException {
+        if (primitives.containsKey(name)) return primitives.get(name);
+        try {
+            return Class.forName(name, false, loader);
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    static long fingerprint(Class<?> type) {
+        CRC32 crc = new CRC32();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            String resource = current.getName().replace('.', '/') + ".class";
+            ClassLoader loader = current.getClassLoader();
+            try (InputStream in = loader == null ? ClassLoader.getSystemResourceAsStream(resource) : loader.getResourceAsStream(resource)) {
+                if (in == null) return 0;
+                crc.update(in.readAllBytes());
+            } catch (IOException e) {
+                return 0;
+            }
+        }
+        return crc.getValue();
+    }
+
+    private record QualifierProxy(Class<? extends Annotation> type, Map<String, Object> values) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "annotationType" -> type;
+                case "equals" -> args.length == 1 && isEqual(args[0]);
+                case "hashCode" -> values.entrySet().stream()
+                        .mapToInt(e -> (127 * e.getKey().hashCode()) ^ hash(e.getValue())).sum();
+                case "toString" -> "@" + type.getName() + values;
+                default -> values.get(method.getName());
+            };
+        }
+
+        private boolean isEqual(Object other) throws ReflectiveOperationException {
+            if (!type.isInstance(other)) return false;
+            for (Method member : members(type))
+                if (!Objects.deepEquals(values.get(member.getName()), member.invoke(other))) return false;
+            return true;
+        }
+
+        private static int hash(Object value) {
+            if (!value.getClass().isArray()) return value.hashCode();
+            int hash = 1;
+            for (int i = 0; i < Array.getLength(value); i++) hash = 31 * hash + Array.get(value, i).hashCode();
+            return hash;
+        }
+    }
+}
@@ -1,17 +1,23 @@
 package org.cyb.di;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Objects;
+
+import static java.util.stream.Collectors.joining;
 
 public class CyclicDependenciesFound extends RuntimeException{
-    private Set<Component> components = new HashSet<>();
+    private List<Component> path;
 
-    public CyclicDependenciesFound(List<Component> visiting) {
-        components.addAll(visiting);
+    public CyclicDependenciesFound(List<Component> path) {
+        super(path.stream().map(Objects::toString).collect(joining(" -> ")));
+        this.path = List.copyOf(path);
     }
 
     public Class<?>[] getComponents() {
-        return components.stream().map(c -> c.type()).toArray(Class<?>[]::new);
+        return path.stream().map(c -> c.type()).distinct().toArray(Class<?>[]::new);
+    }
+
+    public List<Component> getPath() {
+        return path;
     }
 }
@@ -4,68 +4,186 @@ import jakarta.inject.Inject;
 import jakarta.inject.Qualifier;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.stream.Stream;
 
 import static java.util.Arrays.stream;
+import static java.util.stream.Collectors.toSet;
 import static java.util.stream.Stream.concat;
 
 class InjectProvider<T> implements ComponentProvider<T> {
+    private static final ClassValue<InjectionPoints<?>> injectionPoints = new ClassValue<>() {
+        @Override
+        protected InjectionPoints<?> computeValue(Class<?> component) {
+            return InjectionPoints.of(component);
+        }
+    };
+
     private Injectable<Constructor<T>> injectConstructor;
     private List<Injectable<Method>> injectMethods;
     private List<Injectable<Field>> injectFields;
+    private List<ComponentRef<?>> dependencies;
 
     public InjectProvider(Class<T> component) {
-        if (Modifier.isAbstract(component.getModifiers())) {
-            throw new IllegalComponentException();
-        }
-
-        Injectable<Constructor<T>> injectable = getInjectConstructor(component);
-        this.injectConstructor = injectable;
-        this.injectMethods = getInjectMethods(component);
-        this.injectFields = getFields(component);
-
-        if (injectFields.stream().map(Injectable::element).anyMatch(f -> Modifier.isFinal(f.getModifiers()))) {
-            throw new IllegalComponentException();
-        }
+        this((InjectionPoints<T>) injectionPoints(component));
+    }
 
-        if (injectMethods.stream().map(Injectable::element).anyMatch(m -> m.getTypeParameters().length != 0)) {
-            throw new IllegalComponentException();
-        }
+    InjectProvider(InjectionPoints<T> points) {
+        this.injectConstructor = points.constructor();
+        this.injectMethods = points.methods();
+        this.injectFields = points.fields();
+        this.dependencies = points.dependencies();
     }
 
     @Override
     public T get(Context context) {
         try {
-            T instance = injectConstructor.element().newInstance(injectConstructor.toDependencies(context));
+            if (context instanceof ResolutionPlan.Slot slot && slot.resolves(dependencies)) {
+                return resolve(slot);
+            }
+            T instance = (T) injectConstructor.injector().invokeExact(injectConstructor.toDependencies(context));
             for (Injectable<Field> field : injectFields) {
-                field.element().set(instance, field.toDependencies(context)[0]);
+                field.injector().invokeExact((Object) instance, field.toDependencies(context)[0]);
             }
-            for (Injectable<Method> method: injectMethods) {
-                method.element().invoke(instance, method.toDependencies(context));
+            for (Injectable<Method> method : injectMethods) {
+                method.injector().invokeExact((Object) instance, method.toDependencies(context));
             }
             return instance;
-        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
+    private T resolve(ResolutionPlan.Slot slot) throws Throwable {
+        T instance = (T) injectConstructor.resolver().invokeExact(slot);
+        for (int i = 0; i < injectFields.size(); i++) {
+            injectFields.get(i).resolver().invokeExact((Object) instance, slot);
+        }
+        for (int i = 0; i < injectMethods.size(); i++) {
+            injectMethods.get(i).resolver().invokeExact((Object) instance, slot);
+        }
+        return instance;
+    }
+
     @Override
     public List<ComponentRef<?>> getDependencies() {
-        return concat(concat(Stream.of(injectConstructor), injectFields.stream()), injectMethods.stream())
-                .flatMap(i -> stream(i.required())).toList();
+        return dependencies;
+    }
+
+    static InjectionPoints<?> injectionPoints(Class<?> component) {
+        return injectionPoints.get(component);
+    }
+
+    record InjectionPoints<T>(Injectable<Constructor<T>> constructor, List<Injectable<Field>> fields,
+                              List<Injectable<Method>> methods, List<ComponentRef<?>> dependencies) {
+        static <T> InjectionPoints<T> of(Class<T> component) {
+            if (Modifier.isAbstract(component.getModifiers())) {
+                throw new IllegalComponentException();
+            }
+            return of(getInjectConstructor(component), getFields(component), getInjectMethods(component));
+        }
+
+        static <T> InjectionPoints<T> of(Constructor<T> injectConstructor, List<Field> injectFields, List<Method> injectMethods) {
+            if (injectFields.stream().anyMatch(f -> Modifier.isFinal(f.getModifiers()))) {
+                throw new IllegalComponentException();
+            }
+
+            if (injectMethods.stream().anyMatch(m -> m.getTypeParameters().length != 0)) {
+                throw new IllegalComponentException();
+            }
+
+            Injectable<Constructor<T>> constructor = Injectable.of(injectConstructor, 0);
+            int offset = constructor.required().length;
+            List<Injectable<Field>> fields = new ArrayList<>();
+            for (Field field : injectFields) {
+                fields.add(Injectable.of(field, offset++));
+            }
+            List<Injectable<Method>> methods = new ArrayList<>();
+            for (Method method : injectMethods) {
+                methods.add(Injectable.of(method, offset));
+                offset += method.getParameterCount();
+            }
+            List<ComponentRef<?>> dependencies = concat(concat(Stream.of(constructor), fields.stream()), methods.stream())
+                    .flatMap(i -> stream(i.required())).toList();
+            return new InjectionPoints<>(constructor, List.copyOf(fields), List.copyOf(methods), dependencies);
+        }
     }
 
-    static record Injectable<Element extends AccessibleObject>(Element element, ComponentRef<?>[] required) {
-        public static <Element extends Executable> Injectable<Element> of(Element constructor) {
-            ComponentRef<?>[] required = stream(constructor.getParameters()).map(Injectable::toComponentRef).toArray(ComponentRef<?>[]::new);
-            return new Injectable<>(constructor, required);
+    private record Signature(String name, List<Class<?>> parameters) {
+        static Signature of(Method method) {
+            return new Signature(method.getName(), List.of(method.getParameterTypes()));
         }
+    }
+
+    static record Injectable<Element extends AccessibleObject>(Element element, ComponentRef<?>[] required,
+                                                              MethodHandle injector, MethodHandle resolver) {
+        private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        private static final MethodHandle dependency;
 
-        static Injectable<Field> of(Field field) {
-            return new Injectable<>(field, new ComponentRef<?>[]{toComponentRef(field)});
+        static {
+            try {
+                dependency = lookup.findVirtual(ResolutionPlan.Slot.class, "dependency", MethodType.methodType(Object.class, int.class));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        public static <Element extends Executable> Injectable<Element> of(Element executable, int offset) {
+            ComponentRef<?>[] required = stream(executable.getParameters()).map(Injectable::toComponentRef).toArray(ComponentRef<?>[]::new);
+            int arity = executable.getParameterCount();
+            MethodHandle handle = compile(executable);
+            int receiver = executable instanceof Constructor<?> ? 0 : 1;
+            return new Injectable<>(executable, required, handle.asSpreader(Object[].class, arity),
+                    resolver(handle, receiver, arity, offset));
+        }
+
+        static Injectable<Field> of(Field field, int offset) {
+            MethodHandle handle = compile(field);
+            return new Injectable<>(field, new ComponentRef<?>[]{toComponentRef(field)}, handle, resolver(handle, 1, 1, offset));
+        }
+
+        private static MethodHandle compile(Executable executable) {
+            try {
+                int arity = executable.getParameterCount();
+                if (executable instanceof Constructor<?> constructor)
+                    return lookup.unreflectConstructor(constructor).asType(MethodType.genericMethodType(arity));
+                MethodHandle method = lookup.unreflect((Method) executable);
+                if (Modifier.isStatic(executable.getModifiers())) method = MethodHandles.dropArguments(method, 0, Object.class);
+                return method.asType(MethodType.genericMethodType(arity + 1).changeReturnType(void.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalComponentException();
+            }
+        }
+
+        private static MethodHandle compile(Field field) {
+            try {
+                MethodHandle setter = lookup.unreflectSetter(field);
+                if (Modifier.isStatic(field.getModifiers())) setter = MethodHandles.dropArguments(setter, 0, Object.class);
+                return setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalComponentException();
+            }
+        }
+
+        private static MethodHandle resolver(MethodHandle handle, int receiver, int arity, int offset) {
+            MethodHandle[] dependencies = new MethodHandle[arity];
+            for (int i = 0; i < arity; i++) {
+                dependencies[i] = MethodHandles.insertArguments(dependency, 1, offset + i);
+            }
+            int[] reorder = new int[receiver + arity];
+            for (int i = 0; i < reorder.length; i++) {
+                reorder[i] = Math.min(i, receiver);
+            }
+            MethodType type = receiver == 0 ? MethodType.methodType(handle.type().returnType(), ResolutionPlan.Slot.class)
+                    : MethodType.methodType(handle.type().returnType(), Object.class, ResolutionPlan.Slot.class);
+            return MethodHandles.permuteArguments(MethodHandles.filterArguments(handle, receiver, dependencies), type, reorder);
         }
 
         Object[] toDependencies(Context context) {
@@ -91,28 +209,31 @@ class InjectProvider<T> implements ComponentProvider<T> {
         }
     }
 
-    private static List<Injectable<Field>> getFields(Class<?> component) {
-        List<Field> injectFields = traverse(component, (fields, current) -> injectable(current.getDeclaredFields()).toList());
-        return injectFields.stream().map(Injectable::of).toList();
+    private static List<Field> getFields(Class<?> component) {
+        return traverse(component, (fields, current) -> injectable(current.getDeclaredFields()).toList());
     }
 
-    private static <T> Injectable<Constructor<T>> getInjectConstructor(Class<T> component) {
+    private static <T> Constructor<T> getInjectConstructor(Class<T> component) {
         List<Constructor<?>> injectConstructors = injectable(component.getDeclaredConstructors()).toList();
 
         if (injectConstructors.size() > 1) {
             throw new IllegalComponentException();
         }
 
-        return Injectable.of((Constructor<T>) injectConstructors.stream().findFirst().orElseGet(() -> getDefaultConstructor(component)));
+        return (Constructor<T>) injectConstructors.stream().findFirst().orElseGet(() -> getDefaultConstructor(component));
     }
 
-    private static List<Injectable<Method>> getInjectMethods(Class<?> component) {
-        List<Method> injectMethods = traverse(component, (methods, current) -> injectable(current.getDeclaredMethods())
-                .filter(m -> isOverrideByInjectMethod(methods, m))
-                .filter(method -> isOverrideByNoInjectMethod(component, method))
-                .toList());
+    private static List<Method> getInjectMethods(Class<?> component) {
+        Set<Signature> overridden = stream(component.getDeclaredMethods()).filter(m -> !m.isAnnotationPresent(Inject.class))
+                .map(Signature::of).collect(toSet());
+        List<Method> injectMethods = traverse(component, (methods, current) -> {
+            List<Method> declared = injectable(current.getDeclaredMethods())
+                    .filter(m -> !overridden.contains(Signature.of(m))).toList();
+            declared.forEach(m -> overridden.add(Signature.of(m)));
+            return declared;
+        });
         Collections.reverse(injectMethods);
-        return injectMethods.stream().map(Injectable::of).toList();
+        return injectMethods;
     }
 
     private static <T> List<T> traverse(Class<?> component, BiFunction<List<T>, Class<?>, List<T>> function) {
@@ -133,20 +254,7 @@ class InjectProvider<T> implements ComponentProvider<T> {
         }
     }
 
-    private static boolean isOverride(Method m, Method o) {
-        return o.getName().endsWith(m.getName())
-                && Arrays.equals(o.getParameterTypes(), m.getParameterTypes());
-    }
-
     private static <T extends AnnotatedElement> Stream<T> injectable(T[] declaredFields) {
         return stream(declaredFields).filter(c -> c.isAnnotationPresent(Inject.class));
     }
-
-    private static <T> boolean isOverrideByNoInjectMethod(Class<T> component, Method method) {
-        return stream(component.getDeclaredMethods()).filter(m -> !m.isAnnotationPresent(Inject.class)).noneMatch(o -> isOverride(method, o));
-    }
-
-    private static boolean isOverrideByInjectMethod(List<Method> injectMethods, Method m) {
-        return injectMethods.stream().noneMatch(o -> isOverride(m, o));
-    }
 }
@@ -0,0 +1,134 @@
+package org.cyb.di;
+
+import jakarta.inject.Provider;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+class ResolutionPlan implements Context {
+    private static final int Unsupported = Integer.MIN_VALUE;
+
+    private final Map<Component, Integer> ids = new HashMap<>();
+    private final ComponentProvider<?>[] providers;
+    private final Slot[] slots;
+    private final Provider<?>[] containers;
+
+    ResolutionPlan(Map<Component, ComponentProvider<?>> components) {
+        providers = new ComponentProvider<?>[components.size()];
+        for (Map.Entry<Component, ComponentProvider<?>> entry : components.entrySet()) {
+            ids.put(entry.getKey(), ids.size());
+            providers[ids.size() - 1] = entry.getValue();
+        }
+
+        slots = new Slot[providers.length];
+        containers = new Provider<?>[providers.length];
+        for (int id = 0; id < providers.length; id++) {
+            List<ComponentRef<?>> dependencies = providers[id].getDependencies();
+            slots[id] = new Slot(dependencies, dependencies(dependencies));
+            containers[id] = container(id);
+        }
+    }
+
+    @Override
+    public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+        Integer id = ids.get(ref.component());
+        if (id == null) return Optional.empty();
+        if (ref.isContainer()) {
+            if (ref.getContainer() != Provider.class) return Optional.empty();
+            return Optional.of((ComponentType) containers[id]);
+        }
+        return Optional.ofNullable((ComponentType) instance(id));
+    }
+
+    // Direct dependencies form a DAG, so singletons built from them alone take locks in level order.
+    // Anything that can reach a Provider may call get() in any order from its constructor; those run
+    // afterwards on the calling thread, where a cycle fails fast instead of deadlocking two workers.
+    void initialize(ForkJoinPool pool) {
+        List<int[]> levels = levels();
+        boolean[] indirect = new boolean[providers.length];
+        for (int[] level : levels)
+            for (int id : level)
+                for (int dependency : slots[id].dependencies)
+                    indirect[id] |= dependency < 0 || indirect[dependency];
+
+        for (int[] level : levels)
+            pool.submit(() -> IntStream.of(level).parallel()
+                    .filter(id -> providers[id] instanceof SingletonProvider && !indirect[id])
+                    .forEach(this::instance)).join();
+        for (int[] level : levels)
+            for (int id : level)
+                if (providers[id] instanceof SingletonProvider && indirect[id]) instance(id);
+    }
+
+    private List<int[]> levels() {
+        int[] remaining = new int[providers.length];
+        int[] offsets = new int[providers.length + 1];
+        for (int id = 0; id < providers.length; id++)
+            for (int dependency : slots[id].dependencies)
+                if (dependency >= 0) {
+                    remaining[id]++;
+                    offsets[dependency + 1]++;
+                }
+        for (int id = 0; id < providers.length; id++) offsets[id + 1] += offsets[id];
+
+        int[] dependents = new int[offsets[providers.length]];
+        int[] cursor = Arrays.copyOf(offsets, providers.length);
+        for (int id = 0; id < providers.length; id++)
+            for (int dependency : slots[id].dependencies)
+                if (dependency >= 0) dependents[cursor[dependency]++] = id;
+
+        List<int[]> levels = new ArrayList<>();
+        int[] level = IntStream.range(0, providers.length).filter(id -> remaining[id] == 0).toArray();
+        while (level.length > 0) {
+            levels.add(level);
+            level = IntStream.of(level).flatMap(id -> IntStream.range(offsets[id], offsets[id + 1]).map(i -> dependents[i]))
+                    .filter(id -> --remaining[id] == 0).toArray();
+        }
+        return levels;
+    }
+
+    private Object instance(int id) {
+        return providers[id].get(slots[id]);
+    }
+
+    private Provider<?> container(int id) {
+        return () -> instance(id);
+    }
+
+    private int[] dependencies(List<ComponentRef<?>> dependencies) {
+        return dependencies.stream().mapToInt(ref -> {
+            int id = ids.get(ref.component());
+            if (!ref.isContainer()) return id;
+            return ref.getContainer() == Provider.class ? ~id : Unsupported;
+        }).toArray();
+    }
+
+    class Slot implements Context {
+        private final List<ComponentRef<?>> refs;
+        private final int[] dependencies;
+
+        Slot(List<ComponentRef<?>> refs, int[] dependencies) {
+            this.refs = refs;
+            this.dependencies = dependencies;
+        }
+
+        // a scope wrapper that does not forward getDependencies() hands the wrapped provider a slot built for
+        // other (usually no) dependencies; only the provider whose list the slot was built from may index it
+        boolean resolves(List<ComponentRef<?>> dependencies) {
+            return refs == dependencies;
+        }
+
+        Object dependency(int index) {
+            int id = dependencies[index];
+            if (id >= 0) return instance(id);
+            if (id == Unsupported) throw new NoSuchElementException();
+            return containers[~id];
+        }
+
+        @Override
+        public <ComponentType> Optional<ComponentType> get(ComponentRef<ComponentType> ref) {
+            return ResolutionPlan.this.get(ref);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.cyb.di;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SingletonContention {
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitedNanos = new LongAdder();
+    private final LongAccumulator maxWaitedNanos = new LongAccumulator(Math::max, 0);
+
+    void waited(long nanos) {
+        waits.increment();
+        waitedNanos.add(nanos);
+        maxWaitedNanos.accumulate(nanos);
+    }
+
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    public long getWaitedNanos() {
+        return waitedNanos.sum();
+    }
+
+    public long getMaxWaitedNanos() {
+        return maxWaitedNanos.get();
+    }
+}
@@ -1,21 +1,60 @@
 package org.cyb.di;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 class SingletonProvider<T> implements ComponentProvider<T> {
+    private static final VarHandle SINGLETON;
+
+    static {
+        try {
+            SINGLETON = MethodHandles.lookup().findVarHandle(SingletonProvider.class, "singleton", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private T singleton;
     private ComponentProvider<T> provider;
+    private SingletonContention contention;
+    private final ReentrantLock lock = new ReentrantLock();
 
     public SingletonProvider(ComponentProvider<T> provider) {
+        this(provider, new SingletonContention());
+    }
+
+    public SingletonProvider(ComponentProvider<T> provider, SingletonContention contention) {
         this.provider = provider;
+        this.contention = contention;
     }
 
     @Override
     public T get(Context context) {
-        if (singleton == null) {
-            singleton = provider.get(context);
+        T instance = (T) SINGLETON.getAcquire(this);
+        return instance != null ? instance : initialize(context);
+    }
+
+    private T initialize(Context context) {
+        if (lock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("Singleton requested again while being initialized: cyclic dependency through Provider");
+        }
+        if (!lock.tryLock()) {
+            long start = System.nanoTime();
+            lock.lock();
+            contention.waited(System.nanoTime() - start);
+        }
+        try {
+            T instance = singleton;
+            if (instance == null) {
+                instance = provider.get(context);
+                SINGLETON.setRelease(this, instance);
+            }
+            return instance;
+        } finally {
+            lock.unlock();
         }
-        return singleton;
     }
 
     @Override
@@ -4,13 +4,18 @@ import jakarta.inject.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.internal.util.collections.Sets;
 
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -52,6 +57,17 @@ public class ContextTest {
             assertSame(instance, provider.get());
         }
 
+        @Test
+        public void should_bind_type_to_custom_provider_with_qualifier_and_scope() {
+            config.provider(TestComponent.class, context -> new TestComponent() {
+            }, new NamedLiteral("ChosenOne"), new SingletonLiteral());
+            Context context = config.getContext();
+
+            ComponentRef<TestComponent> ref = ComponentRef.of(TestComponent.class, new NamedLiteral("ChosenOne"));
+            assertSame(context.get(ref).get(), context.get(ref).get());
+            assertTrue(context.get(ComponentRef.of(TestComponent.class)).isEmpty());
+        }
+
         @Test
         public void should_not_retrieve_bind_type_as_unsupported_container() {
             TestComponent instance = new TestComponent() {
@@ -62,6 +78,59 @@ public class ContextTest {
             assertFalse(context.get(new ComponentRef<List<TestComponent>>(){}).isPresent());
         }
 
+        static class ComponentWithAllInjections {
+            Dependency constructed;
+            @Inject
+            Provider<Dependency> provider;
+            AnotherDependency installed;
+
+            @Inject
+            public ComponentWithAllInjections(Dependency dependency) {
+                this.constructed = dependency;
+            }
+
+            @Inject
+            void install(AnotherDependency dependency) {
+                this.installed = dependency;
+            }
+        }
+
+        @Test
+        public void should_resolve_constructor_field_and_method_dependencies_from_context() {
+            Dependency dependency = new Dependency() {
+            };
+            AnotherDependency another = new AnotherDependency() {
+            };
+            config.bind(Dependency.class, dependency);
+            config.bind(AnotherDependency.class, another);
+            config.bind(ComponentWithAllInjections.class, ComponentWithAllInjections.class);
+
+            ComponentWithAllInjections component = config.getContext().get(ComponentRef.of(ComponentWithAllInjections.class)).get();
+
+            assertSame(dependency, component.constructed);
+            assertSame(dependency, component.provider.get());
+            assertSame(another, component.installed);
+        }
+
+        @Test
+        public void should_not_allocate_dependency_arrays_when_resolving_from_context() {
+            config.bind(Dependency.class, new Dependency() {
+            });
+            config.bind(AnotherDependency.class, new AnotherDependency() {
+            });
+            config.bind(ComponentWithAllInjections.class, ComponentWithAllInjections.class);
+            Context context = config.getContext();
+            ComponentRef<ComponentWithAllInjections> ref = ComponentRef.of(ComponentWithAllInjections.class);
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+            for (int i = 0; i < 100_000; i++) context.get(ref);
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 100_000; i++) context.get(ref);
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+            assertTrue(allocated / 100_000 < 128, allocated / 100_000 + " bytes per resolution");
+        }
+
         @Nested
         public class WithQualifier {
             @Test
@@ -148,6 +217,182 @@ public class ContextTest {
                     context.get(ComponentRef.of(Dependency.class)).get());
         }
 
+        @Singleton
+        static class SlowSingleton {
+            static AtomicInteger created = new AtomicInteger();
+
+            public SlowSingleton() throws InterruptedException {
+                created.incrementAndGet();
+                Thread.sleep(100);
+            }
+        }
+
+        @Test
+        public void should_create_singleton_once_under_concurrent_first_access() throws Exception {
+            SlowSingleton.created.set(0);
+            config.bind(SlowSingleton.class, SlowSingleton.class);
+            Context context = config.getContext();
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<SlowSingleton>> futures = IntStream.range(0, 8).mapToObj(i -> executor.submit(() -> {
+                start.await();
+                return context.get(ComponentRef.of(SlowSingleton.class)).get();
+            })).toList();
+            start.countDown();
+
+            Set<SlowSingleton> instances = new HashSet<>();
+            for (Future<SlowSingleton> future : futures) instances.add(future.get());
+            executor.shutdown();
+
+            assertEquals(1, instances.size());
+            assertEquals(1, SlowSingleton.created.get());
+            assertTrue(config.getSingletonContention().getWaits() > 0);
+            assertTrue(config.getSingletonContention().getWaitedNanos() > 0);
+        }
+
+        @Singleton
+        static class EagerDependency implements Dependency {
+            static AtomicInteger created = new AtomicInteger();
+
+            public EagerDependency() {
+                created.incrementAndGet();
+            }
+        }
+
+        @Singleton
+        static class EagerComponent implements TestComponent {
+            static AtomicInteger created = new AtomicInteger();
+            Dependency dependency;
+
+            @Inject
+            public EagerComponent(Dependency dependency) {
+                this.dependency = dependency;
+                created.incrementAndGet();
+            }
+        }
+
+        @Test
+        public void should_create_singletons_eagerly_in_dependency_order() {
+            EagerDependency.created.set(0);
+            EagerComponent.created.set(0);
+            config.bind(Dependency.class, EagerDependency.class);
+            config.bind(TestComponent.class, EagerComponent.class);
+
+            Context context = config.getContext(ForkJoinPool.commonPool());
+
+            assertEquals(1, EagerDependency.created.get());
+            assertEquals(1, EagerComponent.created.get());
+            EagerComponent component = (EagerComponent) context.get(ComponentRef.of(TestComponent.class)).get();
+            assertSame(context.get(ComponentRef.of(Dependency.class)).get(), component.dependency);
+            assertEquals(1, EagerDependency.created.get());
+        }
+
+        static class EagerPrototype {
+            static AtomicInteger created = new AtomicInteger();
+
+            public EagerPrototype() {
+                created.incrementAndGet();
+            }
+        }
+
+        @Test
+        public void should_not_create_prototype_components_eagerly() {
+            EagerPrototype.created.set(0);
+            config.bind(EagerPrototype.class, EagerPrototype.class);
+
+            config.getContext(ForkJoinPool.commonPool());
+
+            assertEquals(0, EagerPrototype.created.get());
+        }
+
+        @Singleton
+        static class SelfRequestingSingleton {
+            @Inject
+            public SelfRequestingSingleton(Provider<SelfRequestingSingleton> self) {
+                self.get();
+            }
+        }
+
+        @Test
+        public void should_fail_fast_if_singleton_requested_while_being_initialized() {
+            config.bind(SelfRequestingSingleton.class, SelfRequestingSingleton.class);
+            Context context = config.getContext();
+
+            assertThrows(IllegalStateException.class, () -> context.get(ComponentRef.of(SelfRequestingSingleton.class)));
+        }
+
+        @Singleton
+        static class ProviderCycleA {
+            static CountDownLatch entered = new CountDownLatch(2);
+
+            @Inject
+            public ProviderCycleA(Provider<ProviderCycleB> b) throws InterruptedException {
+                entered.countDown();
+                entered.await(1, TimeUnit.SECONDS);
+                b.get();
+            }
+        }
+
+        @Singleton
+        static class ProviderCycleB {
+            @Inject
+            public ProviderCycleB(Provider<ProviderCycleA> a) throws InterruptedException {
+                ProviderCycleA.entered.countDown();
+                ProviderCycleA.entered.await(1, TimeUnit.SECONDS);
+                a.get();
+            }
+        }
+
+        @Test
+        public void should_fail_fast_instead_of_deadlock_if_eager_singletons_request_each_other_through_provider() {
+            ProviderCycleA.entered = new CountDownLatch(2);
+            config.bind(ProviderCycleA.class, ProviderCycleA.class);
+            config.bind(ProviderCycleB.class, ProviderCycleB.class);
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                assertTimeoutPreemptively(Duration.ofSeconds(10),
+                        () -> assertThrows(IllegalStateException.class, () -> config.getContext(pool)));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        @Singleton
+        static class ParallelSingleton {
+            static CountDownLatch started = new CountDownLatch(2);
+            static AtomicInteger overlapped = new AtomicInteger();
+
+            public ParallelSingleton() throws InterruptedException {
+                started.countDown();
+                if (started.await(5, TimeUnit.SECONDS)) overlapped.incrementAndGet();
+            }
+        }
+
+        @Singleton
+        static class OtherParallelSingleton extends ParallelSingleton {
+            public OtherParallelSingleton() throws InterruptedException {
+            }
+        }
+
+        @Test
+        public void should_create_independent_singletons_in_parallel() {
+            ParallelSingleton.started = new CountDownLatch(2);
+            ParallelSingleton.overlapped.set(0);
+            config.bind(ParallelSingleton.class, ParallelSingleton.class);
+            config.bind(OtherParallelSingleton.class, OtherParallelSingleton.class);
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                config.getContext(pool);
+            } finally {
+                pool.shutdown();
+            }
+
+            assertEquals(2, ParallelSingleton.overlapped.get());
+        }
+
         @Nested
         public class WithQualifier {
             @Test
@@ -178,6 +423,74 @@ public class ContextTest {
         }
     }
 
+    @Nested
+    public class Snapshot {
+        @TempDir
+        Path directory;
+
+        private Path snapshot(ContextConfig config) {
+            Path file = directory.resolve("context.snapshot");
+            config.snapshot(file);
+            return file;
+        }
+
+        @Test
+        public void should_restore_components_with_qualifier_and_scope_from_snapshot() {
+            config.bind(Dependency.class, new Dependency() {
+            });
+            config.bind(InjectionTest.ConstructorInjection.Injection.InjectConstructor.class,
+                    InjectionTest.ConstructorInjection.Injection.InjectConstructor.class,
+                    new NamedLiteral("ChosenOne"), new SingletonLiteral());
+            Path file = snapshot(config);
+
+            Dependency dependency = new Dependency() {
+            };
+            ContextConfig restored = new ContextConfig();
+            restored.restore(file);
+            restored.bind(Dependency.class, dependency);
+            Context context = restored.getContext();
+
+            ComponentRef<InjectionTest.ConstructorInjection.Injection.InjectConstructor> ref =
+                    ComponentRef.of(InjectionTest.ConstructorInjection.Injection.InjectConstructor.class, new NamedLiteral("ChosenOne"));
+            assertSame(dependency, context.get(ref).get().dependency);
+            assertSame(context.get(ref).get(), context.get(ref).get());
+        }
+
+        @Test
+        public void should_validate_restored_bindings_if_instances_not_bound() {
+            config.bind(Dependency.class, new Dependency() {
+            });
+            config.bind(TestComponent.class, DependencyCheck.TestComponentWithInjectConstructor.class);
+            Path file = snapshot(config);
+
+            ContextConfig restored = new ContextConfig();
+            restored.restore(file);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, () -> restored.getContext());
+            assertEquals(Dependency.class, exception.getDependency().type());
+        }
+
+        @Test
+        public void should_validate_bindings_changed_after_restore() {
+            config.bind(Dependency.class, WithScope.SingletonAnnotated.class);
+            Path file = snapshot(config);
+
+            ContextConfig restored = new ContextConfig();
+            restored.restore(file);
+            restored.bind(Dependency.class, DependencyCheck.DependencyDependedOnAnotherDependency.class);
+
+            DependencyNotFoundException exception = assertThrows(DependencyNotFoundException.class, () -> restored.getContext());
+            assertEquals(AnotherDependency.class, exception.getDependency().type());
+        }
+
+        @Test
+        public void should_not_write_snapshot_if_dependency_not_found() {
+            config.bind(TestComponent.class, DependencyCheck.TestComponentWithInjectConstructor.class);
+
+            assertThrows(DependencyNotFoundException.class, () -> snapshot(config));
+        }
+    }
+
     @Nested
     public class DependencyCheck {
         static class TestComponentWithInjectConstructor implements TestComponent {
@@ -274,6 +587,43 @@ public class ContextTest {
             assertTrue(classes.contains(AnotherDependency.class));
         }
 
+        @Test
+        public void should_report_cyclic_dependencies_path() {
+            config.bind(TestComponent.class, TestComponentWithInjectConstructor.class);
+            config.bind(Dependency.class, DependencyDependedOnAnotherDependency.class);
+            config.bind(AnotherDependency.class, AnotherDependencyDependedComponent.class);
+
+            CyclicDependenciesFound exception = assertThrows(CyclicDependenciesFound.class, () -> config.getContext());
+            List<Component> path = exception.getPath();
+
+            assertEquals(3, path.size());
+            List<Class<?>> cycle = List.of(TestComponent.class, Dependency.class, AnotherDependency.class, TestComponent.class, Dependency.class);
+            int start = cycle.indexOf(path.get(0).type());
+            assertEquals(cycle.subList(start, start + 3), path.stream().map(Component::type).toList());
+        }
+
+        @Test
+        public void should_check_large_diamond_dependency_graph_in_linear_time() {
+            int size = 50_000;
+            for (int i = 0; i < size; i++) {
+                List<ComponentRef<?>> dependencies = IntStream.range(i + 1, Math.min(i + 3, size))
+                        .<ComponentRef<?>>mapToObj(d -> ComponentRef.of(TestComponent.class, new NamedLiteral("" + d))).toList();
+                config.bind(new Component(TestComponent.class, new NamedLiteral("" + i)), new ComponentProvider<TestComponent>() {
+                    @Override
+                    public TestComponent get(Context context) {
+                        return null;
+                    }
+
+                    @Override
+                    public List<ComponentRef<?>> getDependencies() {
+                        return dependencies;
+                    }
+                });
+            }
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> config.getContext());
+        }
+
         @Test
         public void should_bind_component_as_customized_scope() {
             config.scope(Pooled.class, PooledProvider::new);
@@ -283,6 +633,28 @@ public class ContextTest {
             assertEquals(PooledProvider.MAX, new HashSet<>(instances).size());
         }
 
+        @Test
+        public void should_inject_dependencies_through_scope_provider_not_forwarding_dependencies() {
+            Dependency dependency = new Dependency() {
+            };
+            config.scope(Pooled.class, provider -> context -> provider.get(context));
+            config.bind(Dependency.class, dependency);
+            config.bind(ScopedInjectConstructor.class, ScopedInjectConstructor.class, new PooledLiteral());
+
+            Context context = config.getContext();
+
+            assertSame(dependency, context.get(ComponentRef.of(ScopedInjectConstructor.class)).get().dependency);
+        }
+
+        static class ScopedInjectConstructor {
+            Dependency dependency;
+
+            @Inject
+            public ScopedInjectConstructor(Dependency dependency) {
+                this.dependency = dependency;
+            }
+        }
+
         @Test
         public void should_throw_exception_if_multi_scope_provided() {
             assertThrows(IllegalComponentException.class, () -> config.bind(WithScope.NotSingleton.class, WithScope.NotSingleton.class, new SingletonLiteral(), new PooledLiteral()));
@@ -214,6 +214,17 @@ public class InjectionTest {
                 Provider<Dependency> dependency;
             }
 
+            static class StaticInjectField {
+                @Inject
+                static Dependency dependency;
+            }
+
+            @Test
+            public void should_inject_dependency_via_static_field() {
+                new InjectProvider<>(StaticInjectField.class).get(context);
+                assertSame(dependency, StaticInjectField.dependency);
+            }
+
             @Test
             public void should_inject_provider_via_inject_field() {
                 ProviderInjectField instance = new InjectProvider<>(ProviderInjectField.class).get(context);
@@ -317,6 +328,21 @@ public class InjectionTest {
                 assertSame(dependency, component.dependency);
             }
 
+            static class StaticInjectMethod {
+                static Dependency dependency;
+
+                @Inject
+                static void install(Dependency dependency) {
+                    StaticInjectMethod.dependency = dependency;
+                }
+            }
+
+            @Test
+            public void should_inject_dependency_via_static_inject_method() {
+                new InjectProvider<>(StaticInjectMethod.class).get(context);
+                assertSame(dependency, StaticInjectMethod.dependency);
+            }
+
             static class SuperClassWithInjectMethod {
                 int superCalled = 0;
 
@@ -370,6 +396,26 @@ public class InjectionTest {
                 assertEquals(0, component.superCalled);
             }
 
+            static class SubclassWithSimilarNamedMethod extends SuperClassWithInjectMethod {
+                void reinstall() {
+                }
+            }
+
+            @Test
+            public void should_call_inject_method_if_subclass_declares_method_with_similar_name() {
+                SubclassWithSimilarNamedMethod component = new InjectProvider<>(SubclassWithSimilarNamedMethod.class).get(context);
+
+                assertEquals(1, component.superCalled);
+            }
+
+            @Test
+            public void should_share_injection_points_between_providers_of_same_class() {
+                InjectProvider<InjectMethodWithDependency> provider = new InjectProvider<>(InjectMethodWithDependency.class);
+                InjectProvider<InjectMethodWithDependency> another = new InjectProvider<>(InjectMethodWithDependency.class);
+
+                assertSame(provider.getDependencies(), another.getDependencies());
+            }
+
             @Test
             public void should_include_dependencies_from_inject_method() {
                 InjectProvider<InjectMethodWithDependency> provider = new InjectProvider<>(InjectMethodWithDependency.class);
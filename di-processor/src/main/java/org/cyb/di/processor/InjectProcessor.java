@@ -0,0 +1,199 @@
+package org.cyb.di.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
+
+@SupportedAnnotationTypes(InjectProcessor.Inject)
+public class InjectProcessor extends AbstractProcessor {
+    static final String Inject = "jakarta.inject.Inject";
+    static final String Qualifier = "jakarta.inject.Qualifier";
+    static final String Suffix = "_Provider";
+    static final String Index = "META-INF/org.cyb.di.providers";
+
+    private final Set<String> processed = new HashSet<>();
+    private final Properties index = new Properties();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations)
+            for (Element element : round.getElementsAnnotatedWith(annotation))
+                if (element.getEnclosingElement() instanceof TypeElement component
+                        && processed.add(component.getQualifiedName().toString()))
+                    injections(component).ifPresentOrElse(this::write, () -> processingEnv.getMessager()
+                            .printMessage(Diagnostic.Kind.NOTE, "Reflective injection kept for " + component, component));
+        if (round.processingOver() && !index.isEmpty()) writeIndex();
+        return false;
+    }
+
+    private void write(ProviderWriter provider) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(provider.qualifiedName(), provider.component()).openWriter()) {
+            writer.write(provider.source());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        index.setProperty(processingEnv.getElementUtils().getBinaryName(provider.component()).toString(), provider.qualifiedName());
+    }
+
+    private void writeIndex() {
+        Properties merged = new Properties();
+        try (InputStream existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", Index).openInputStream()) {
+            merged.load(existing);
+        } catch (IOException | IllegalArgumentException e) {
+            // no index from an earlier (incremental) compilation
+        }
+        merged.putAll(index);
+        FileObject resource;
+        try {
+            resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", Index);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try (OutputStream output = resource.openOutputStream()) {
+            merged.store(output, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Optional<ProviderWriter> injections(TypeElement component) {
+        if (component.getKind() != ElementKind.CLASS || component.getModifiers().contains(Modifier.ABSTRACT)
+                || !component.getTypeParameters().isEmpty() || !isVisible(component, component))
+            return Optional.empty();
+        if (component.getNestingKind() == NestingKind.MEMBER && !component.getModifiers().contains(Modifier.STATIC))
+            return Optional.empty();
+
+        Optional<ExecutableElement> constructor = getInjectConstructor(component);
+        if (constructor.isEmpty()) return Optional.empty();
+
+        List<VariableElement> fields = new ArrayList<>();
+        List<ExecutableElement> methods = new ArrayList<>();
+        List<ExecutableElement> candidates = new ArrayList<>();
+        for (TypeElement current = component; current != null; current = superclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements()))
+                if (isInject(field)) fields.add(field);
+            List<ExecutableElement> declared = ElementFilter.methodsIn(current.getEnclosedElements());
+            for (ExecutableElement method : declared) {
+                if (!isInject(method)) continue;
+                List<ExecutableElement> overriders = candidates.stream().filter(o -> isOverride(o, method, component)).toList();
+                if (overriders.isEmpty()) methods.add(method);
+                // reflection only drops an @Inject method overridden by the component itself or by another @Inject method,
+                // so a plain override in an intermediate class is left to reflection
+                else if (overriders.stream().noneMatch(o -> isInject(o) || o.getEnclosingElement().equals(component)))
+                    return Optional.empty();
+            }
+            candidates.addAll(declared);
+        }
+        Collections.reverse(methods);
+
+        if (fields.stream().anyMatch(f -> f.getModifiers().contains(Modifier.FINAL))) return Optional.empty();
+        if (methods.stream().anyMatch(m -> !m.getTypeParameters().isEmpty())) return Optional.empty();
+
+        List<Element> members = new ArrayList<>(fields);
+        members.add(constructor.get());
+        members.addAll(methods);
+        if (!members.stream().allMatch(m -> isAccessible(m, component))) return Optional.empty();
+
+        List<VariableElement> dependencies = new ArrayList<>(constructor.get().getParameters());
+        dependencies.addAll(fields);
+        methods.forEach(m -> dependencies.addAll(m.getParameters()));
+        if (!dependencies.stream().allMatch(d -> isSupported(d, component))) return Optional.empty();
+
+        return Optional.of(new ProviderWriter(component, providerName(component), constructor.get(), fields, methods));
+    }
+
+    private Optional<ExecutableElement> getInjectConstructor(TypeElement component) {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(component.getEnclosedElements());
+        List<ExecutableElement> injectConstructors = constructors.stream().filter(this::isInject).toList();
+        if (injectConstructors.size() > 1) return Optional.empty();
+        return injectConstructors.stream().findFirst()
+                .or(() -> constructors.stream().filter(c -> c.getParameters().isEmpty()).findFirst());
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) return null;
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    private boolean isOverride(ExecutableElement overrider, ExecutableElement overridden, TypeElement component) {
+        return processingEnv.getElementUtils().overrides(overrider, overridden, component);
+    }
+
+    private boolean isInject(Element element) {
+        return element.getAnnotationMirrors().stream().anyMatch(a -> isAnnotation(a, Inject));
+    }
+
+    private boolean isSupported(VariableElement dependency, TypeElement component) {
+        if (dependency.getAnnotationMirrors().stream().anyMatch(a ->
+                a.getAnnotationType().asElement().getAnnotationMirrors().stream().anyMatch(m -> isAnnotation(m, Qualifier))))
+            return false;
+        if (!(dependency.asType() instanceof DeclaredType type) || !isVisible(type.asElement(), component))
+            return false;
+        return type.getTypeArguments().stream().allMatch(argument -> argument instanceof DeclaredType declared
+                && declared.getTypeArguments().isEmpty() && isVisible(declared.asElement(), component));
+    }
+
+    private boolean isAccessible(Element member, TypeElement component) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) return false;
+        if (!modifiers.contains(Modifier.PUBLIC) && !samePackage(member, component)) return false;
+        return member.getEnclosingElement().equals(component) || isVisible(member.getEnclosingElement(), component);
+    }
+
+    private boolean isVisible(Element type, TypeElement component) {
+        for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            Set<Modifier> modifiers = current.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !samePackage(current, component)) return false;
+        }
+        return true;
+    }
+
+    private boolean samePackage(Element element, TypeElement component) {
+        return processingEnv.getElementUtils().getPackageOf(element).equals(processingEnv.getElementUtils().getPackageOf(component));
+    }
+
+    private static boolean isAnnotation(AnnotationMirror annotation, String name) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    private String providerName(TypeElement component) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(component).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(component).toString();
+        String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return mangle(simpleName) + Suffix;
+    }
+
+    // '_' -> "__" and '$' -> "_0" is prefix-free, so Outer$Inner and Outer_Inner never share a provider name
+    static String mangle(String binaryName) {
+        StringBuilder mangled = new StringBuilder(binaryName.length());
+        for (char c : binaryName.toCharArray()) {
+            if (c == '_') mangled.append("__");
+            else if (c == '$') mangled.append("_0");
+            else mangled.append(c);
+        }
+        return mangled.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package org.cyb.di.processor;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.joining;
+
+record ProviderWriter(TypeElement component, String simpleName, ExecutableElement constructor,
+                      List<VariableElement> fields, List<ExecutableElement> methods) {
+
+    String qualifiedName() {
+        String packageName = packageName();
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    String source() {
+        List<String> dependencies = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+
+        body.append("        ").append(type()).append(" instance = new ").append(type())
+                .append("(").append(arguments(constructor.getParameters(), dependencies)).append(");\n");
+        for (VariableElement field : fields)
+            body.append("        ").append(target(field)).append(".").append(field.getSimpleName())
+                    .append(" = ").append(argument(field, dependencies)).append(";\n");
+        for (ExecutableElement method : methods)
+            body.append("        instance.").append(method.getSimpleName())
+                    .append("(").append(arguments(method.getParameters(), dependencies)).append(");\n");
+        body.append("        return instance;\n");
+
+        String packageName = packageName();
+        return (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n")
+                + "@javax.annotation.processing.Generated(\"" + InjectProcessor.class.getName() + "\")\n"
+                + "public final class " + simpleName + " implements org.cyb.di.ComponentProvider<" + type() + "> {\n"
+                + "    private static final java.util.List<org.cyb.di.ComponentRef<?>> dependencies = java.util.List.of(\n"
+                + dependencies.stream().map(d -> "            " + d).collect(joining(",\n")) + ");\n\n"
+                + "    @Override\n"
+                + "    @SuppressWarnings(\"unchecked\")\n"
+                + "    public " + type() + " get(org.cyb.di.Context context) {\n"
+                + body
+                + "    }\n\n"
+                + "    @Override\n"
+                + "    public java.util.List<org.cyb.di.ComponentRef<?>> getDependencies() {\n"
+                + "        return dependencies;\n"
+                + "    }\n\n"
+                + "    private static Object dependency(org.cyb.di.Context context, int index) {\n"
+                + "        return context.get(dependencies.get(index)).get();\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    private String arguments(List<? extends VariableElement> parameters, List<String> dependencies) {
+        return parameters.stream().map(p -> argument(p, dependencies)).collect(joining(", "));
+    }
+
+    private String argument(VariableElement dependency, List<String> dependencies) {
+        DeclaredType type = (DeclaredType) dependency.asType();
+        dependencies.add(type.getTypeArguments().isEmpty()
+                ? "org.cyb.di.ComponentRef.of(" + type + ".class)"
+                : "new org.cyb.di.ComponentRef<" + type + ">() {}");
+        return "(" + type + ") dependency(context, " + (dependencies.size() - 1) + ")";
+    }
+
+    private String target(VariableElement field) {
+        Element declaring = field.getEnclosingElement();
+        return declaring.equals(component) ? "instance" : "((" + erasure(declaring.asType()) + ") instance)";
+    }
+
+    private String type() {
+        return component.getQualifiedName().toString();
+    }
+
+    private static String erasure(TypeMirror type) {
+        return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+    }
+
+    private String packageName() {
+        Element current = component;
+        while (!(current instanceof PackageElement)) current = current.getEnclosingElement();
+        return ((PackageElement) current).getQualifiedName().toString();
+    }
+}
@@ -0,0 +1,232 @@
+package org.cyb.di.processor;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import org.cyb.di.ComponentRef;
+import org.cyb.di.Context;
+import org.cyb.di.ContextConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.processing.Processor;
+import javax.tools.*;
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InjectProcessorTest {
+    private static final Map<String, String> Sources = Map.of(
+            "sample.Engine", """
+                        package sample;
+                        public class Engine {
+                        }
+                        """,
+            "sample.Wheel", """
+                        package sample;
+                        public class Wheel {
+                        }
+                        """,
+            "sample.Vehicle", """
+                        package sample;
+                        import jakarta.inject.Inject;
+                        public class Vehicle {
+                            @Inject Wheel wheel;
+                            Engine installed;
+                            @Inject void install(Engine engine) { installed = engine; }
+                        }
+                        """,
+            "sample.Car", """
+                        package sample;
+                        import jakarta.inject.Inject;
+                        import jakarta.inject.Provider;
+                        public class Car extends Vehicle {
+                            public final Engine engine;
+                            @Inject Provider<Wheel> spare;
+                            @Inject public Car(Engine engine) { this.engine = engine; }
+                        }
+                        """,
+            "sample.Hidden", """
+                        package sample;
+                        import jakarta.inject.Inject;
+                        import jakarta.inject.Named;
+                        public class Hidden {
+                            @Inject @Named("V8") public Engine engine;
+                        }
+                        """,
+            "sample.Outer", """
+                        package sample;
+                        import jakarta.inject.Inject;
+                        public class Outer {
+                            public static class Inner {
+                                @Inject public Engine engine;
+                            }
+                        }
+                        """,
+            "sample.Outer_Inner", """
+                        package sample;
+                        import jakarta.inject.Inject;
+                        public class Outer_Inner {
+                            @Inject public Wheel wheel;
+                        }
+                        """,
+            "sample.Base", """
+                        package sample;
+                        import jakarta.inject.Inject;
+                        public class Base {
+                            public String installed = "";
+                            @Inject public void install(Engine engine) { installed += "Base"; }
+                        }
+                        """,
+            "sample.Middle", """
+                        package sample;
+                        public class Middle extends Base {
+                            @Override public void install(Engine engine) { installed += "Middle"; }
+                        }
+                        """,
+            "sample.Leaf", """
+                        package sample;
+                        import jakarta.inject.Inject;
+                        public class Leaf extends Middle {
+                            @Inject public Leaf() { }
+                        }
+                        """);
+
+    @TempDir
+    Path output;
+
+    private ClassLoader loader;
+
+    @BeforeEach
+    public void compile() throws Exception {
+        loader = compile(output, List.of(new InjectProcessor()));
+    }
+
+    @Test
+    public void should_generate_provider_for_component_with_inject_members() throws Exception {
+        Class<?> provider = loader.loadClass("sample.Car_Provider");
+
+        assertTrue(Files.exists(output.resolve("sample/Car_Provider.java")));
+        assertEquals("org.cyb.di.ComponentProvider", provider.getInterfaces()[0].getName());
+    }
+
+    @Test
+    public void should_index_generated_providers_by_component() throws Exception {
+        Properties index = new Properties();
+        try (var input = Files.newInputStream(output.resolve(InjectProcessor.Index))) {
+            index.load(input);
+        }
+
+        assertEquals("sample.Car_Provider", index.getProperty("sample.Car"));
+        assertNull(index.getProperty("sample.Hidden"));
+    }
+
+    @Test
+    public void should_not_collide_provider_names_of_nested_and_underscored_components() throws Exception {
+        Context context = context("sample.Outer$Inner");
+
+        Object inner = context.get(ComponentRef.of(loader.loadClass("sample.Outer$Inner"))).get();
+
+        assertNotEquals(InjectProcessor.mangle("Outer$Inner"), InjectProcessor.mangle("Outer_Inner"));
+        assertNotNull(loader.loadClass("sample.Outer_0Inner_Provider"));
+        assertNotNull(loader.loadClass("sample.Outer__Inner_Provider"));
+        assertNotNull(inner.getClass().getField("engine").get(inner));
+    }
+
+    @Test
+    public void should_not_generate_provider_if_dependency_qualified() {
+        assertThrows(ClassNotFoundException.class, () -> loader.loadClass("sample.Hidden_Provider"));
+    }
+
+    @Test
+    public void should_inject_component_via_generated_provider() throws Exception {
+        Context context = context("sample.Car");
+
+        Object car = context.get(ComponentRef.of(loader.loadClass("sample.Car"))).get();
+
+        Object engine = car.getClass().getField("engine").get(car);
+        assertNotNull(engine);
+        assertSame(engine.getClass(), field(car, "installed").getClass());
+        assertNotNull(field(car, "wheel"));
+        assertNotNull(((jakarta.inject.Provider<?>) field(car, "spare")).get());
+    }
+
+    @Test
+    public void should_fall_back_to_reflection_if_no_provider_generated() throws Exception {
+        Class<?> type = loader.loadClass("sample.Hidden");
+        Context context = context("sample.Hidden", type.getField("engine").getAnnotation(Named.class));
+
+        Object hidden = context.get(ComponentRef.of(type)).get();
+
+        assertNotNull(type.getField("engine").get(hidden));
+    }
+
+    @Test
+    public void should_inject_like_reflection_if_inject_method_overridden_in_intermediate_class() throws Exception {
+        ClassLoader reflected = compile(output.resolve("reflected"), List.of());
+
+        Object processed = context(loader, "sample.Leaf").get(ComponentRef.of(loader.loadClass("sample.Leaf"))).get();
+        Object expected = context(reflected, "sample.Leaf").get(ComponentRef.of(reflected.loadClass("sample.Leaf"))).get();
+
+        assertEquals(field(expected, "installed"), field(processed, "installed"));
+    }
+
+    private Context context(String component, Annotation... engine) throws Exception {
+        return context(loader, component, engine);
+    }
+
+    private static Context context(ClassLoader loader, String component, Annotation... engine) throws Exception {
+        ContextConfig config = new ContextConfig();
+        bind(config, loader.loadClass("sample.Engine"), engine);
+        bind(config, loader.loadClass("sample.Wheel"));
+        bind(config, loader.loadClass(component));
+        return config.getContext();
+    }
+
+    private static <T> void bind(ContextConfig config, Class<T> type, Annotation... annotations) {
+        config.component(type, type, annotations);
+    }
+
+    private static Object field(Object instance, String name) throws Exception {
+        Class<?> type = instance.getClass();
+        while (true) {
+            try {
+                var field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(instance);
+            } catch (NoSuchFieldException e) {
+                type = type.getSuperclass();
+            }
+        }
+    }
+
+    private ClassLoader compile(Path output, List<Processor> processors) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Files.createDirectories(output);
+        List<JavaFileObject> units = Sources.entrySet().stream().<JavaFileObject>map(e ->
+                new SimpleJavaFileObject(java.net.URI.create("string:///" + e.getKey().replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+                    @Override
+                    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                        return e.getValue();
+                    }
+                }).toList();
+        String classpath = String.join(File.pathSeparator, location(Inject.class), location(ContextConfig.class));
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                List.of("-classpath", classpath, "-d", output.toString(), "-s", output.toString()), null, units);
+        task.setProcessors(processors);
+        assertTrue(task.call());
+        return new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader());
+    }
+
+    private static String location(Class<?> type) throws Exception {
+        return Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+}
@@ -0,0 +1,335 @@
+package org.cyb.rest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.container.ResourceContext;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.GenericEntity;
+import jakarta.ws.rs.core.GenericType;
+import jakarta.ws.rs.core.Link;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Providers;
+import org.cyb.di.Context;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DispatchBenchmark {
+    static final int Requests = 1000;
+    static final int PlatformThreads = 200;
+    static final String Request = "GET /sleeping/sleep HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n";
+
+    // Benchmarks drops "virtual" from the defaults when the running JDK has no virtual threads
+    @Param({"platform", "virtual"})
+    String threads;
+
+    ExecutorService executor;
+    Server server;
+    LocalConnector connector;
+
+    @Setup
+    public void setup() throws Exception {
+        executor = threads.equals("virtual")
+                ? DispatchExecutors.virtualThreads().orElseThrow(() -> new IllegalStateException("virtual threads require Java 21"))
+                : Executors.newFixedThreadPool(PlatformThreads);
+        ResourceRouter.ResourceMethod method = new RootResourceClass.DefaultResourceMethod(Sleeping.class, Sleeping.class.getMethod("sleep"));
+        OutboundResponse slept = new Slept();
+        ResourceRouter router = (request, context) -> {
+            method.call(context, null);
+            return slept;
+        };
+
+        // an in-memory connector runs the servlet under Jetty's AsyncContext without sockets or an HTTP client
+        server = new Server();
+        connector = new LocalConnector(server);
+        server.addConnector(connector);
+        ServletContextHandler handler = new ServletContextHandler(server, "/");
+        ServletHolder holder = new ServletHolder(new ResourceServlet(new Dispatching(router, executor)));
+        holder.setAsyncSupported(true);
+        handler.addServlet(holder, "/");
+        server.setHandler(handler);
+        server.start();
+
+        String response = connector.getResponse(Request);
+        if (!response.startsWith("HTTP/1.1 200") || !response.endsWith("slept"))
+            throw new IllegalStateException("unexpected response: " + response);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        server.stop();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Requests)
+    public void dispatch() throws Exception {
+        LocalConnector.LocalEndPoint[] requests = new LocalConnector.LocalEndPoint[Requests];
+        for (int i = 0; i < Requests; i++) requests[i] = connector.executeRequest(Request);
+        for (LocalConnector.LocalEndPoint request : requests) request.waitUntilClosed();
+    }
+
+    static class Slept extends OutboundResponse {
+        private final GenericEntity<String> entity = new GenericEntity<>("slept", String.class);
+        private final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+
+        @Override
+        GenericEntity getGenericEntity() {
+            return entity;
+        }
+
+        @Override
+        Annotation[] getAnnotations() {
+            return new Annotation[0];
+        }
+
+        @Override
+        public int getStatus() {
+            return Status.OK.getStatusCode();
+        }
+
+        @Override
+        public StatusType getStatusInfo() {
+            return Status.OK;
+        }
+
+        @Override
+        public Object getEntity() {
+            return entity.getEntity();
+        }
+
+        @Override
+        public boolean hasEntity() {
+            return true;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return MediaType.TEXT_PLAIN_TYPE;
+        }
+
+        @Override
+        public MultivaluedMap<String, Object> getMetadata() {
+            return headers;
+        }
+
+        @Override
+        public MultivaluedMap<String, String> getStringHeaders() {
+            return new MultivaluedHashMap<>();
+        }
+
+        @Override
+        public String getHeaderString(String name) {
+            return null;
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T readEntity(GenericType<T> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> type, Annotation[] annotations) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T readEntity(GenericType<T> type, Annotation[] annotations) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean bufferEntity() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Locale getLanguage() {
+            return null;
+        }
+
+        @Override
+        public int getLength() {
+            return -1;
+        }
+
+        @Override
+        public Set<String> getAllowedMethods() {
+            return Set.of();
+        }
+
+        @Override
+        public Map<String, NewCookie> getCookies() {
+            return Map.of();
+        }
+
+        @Override
+        public EntityTag getEntityTag() {
+            return null;
+        }
+
+        @Override
+        public Date getDate() {
+            return null;
+        }
+
+        @Override
+        public Date getLastModified() {
+            return null;
+        }
+
+        @Override
+        public URI getLocation() {
+            return null;
+        }
+
+        @Override
+        public Set<Link> getLinks() {
+            return Set.of();
+        }
+
+        @Override
+        public boolean hasLink(String relation) {
+            return false;
+        }
+
+        @Override
+        public Link getLink(String relation) {
+            return null;
+        }
+
+        @Override
+        public Link.Builder getLinkBuilder(String relation) {
+            return null;
+        }
+    }
+
+    record Dispatching(ResourceRouter router, Executor executor) implements Runtime {
+        private static final Sleeping resource = new Sleeping();
+
+        @Override
+        public Providers getProviders() {
+            return new StringWriting();
+        }
+
+        @Override
+        public ResourceContext createResourceContext(HttpServletRequest request, HttpServletResponse response) {
+            return new ResourceContext() {
+                @Override
+                public <T> T getResource(Class<T> type) {
+                    return type.cast(resource);
+                }
+
+                @Override
+                public <T> T initResource(T resource) {
+                    return resource;
+                }
+            };
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            return null;
+        }
+
+        @Override
+        public ResourceRouter getResourceRouter() {
+            return router;
+        }
+
+        @Override
+        public UriInfoBuilder createUriInfoBuilder(HttpServletRequest request) {
+            return null;
+        }
+
+        @Override
+        public Optional<Executor> getDispatchExecutor() {
+            return Optional.of(executor);
+        }
+    }
+
+    static class StringWriting implements Providers, MessageBodyWriter<String> {
+        @Override
+        public <T> MessageBodyReader<T> getMessageBodyReader(Class<T> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            return null;
+        }
+
+        @Override
+        public <T> MessageBodyWriter<T> getMessageBodyWriter(Class<T> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            return type == String.class ? (MessageBodyWriter<T>) this : null;
+        }
+
+        @Override
+        public <T extends Throwable> ExceptionMapper<T> getExceptionMapper(Class<T> type) {
+            return null;
+        }
+
+        @Override
+        public <T> ContextResolver<T> getContextResolver(Class<T> contextType, MediaType mediaType) {
+            return null;
+        }
+
+        @Override
+        public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            return type == String.class;
+        }
+
+        @Override
+        public void writeTo(String entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                            MultivaluedMap<String, Object> headers, OutputStream out) throws IOException {
+            out.write(entity.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Path("/sleeping")
+    public static class Sleeping {
+        @GET
+        @Path("/sleep")
+        public String sleep() throws InterruptedException {
+            Thread.sleep(10);
+            return "slept";
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.cyb.rest;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RouteMatchingBenchmark {
+    @Param({"50", "400"})
+    int routes;
+
+    @Param({"/resources17/42/items/7", "/missing/42"})
+    String path;
+
+    List<UriTemplate> templates;
+    RouteIndex<UriTemplate> index;
+    TemplateAutomaton<UriTemplate> automaton;
+
+    @Setup
+    public void setup() {
+        templates = new ArrayList<>();
+        for (int i = 0; i < routes; i++) {
+            templates.add(new PathTemplate("/resources" + i));
+            templates.add(new PathTemplate("/resources" + i + "/{id}/items/{item}"));
+        }
+        index = new RouteIndex<>(templates, Function.identity());
+        automaton = new TemplateAutomaton<>(templates, Function.identity());
+    }
+
+    @Benchmark
+    public UriTemplate.MatchResult regex() {
+        return best(templates);
+    }
+
+    @Benchmark
+    public UriTemplate.MatchResult indexed() {
+        return best(index.candidates(path));
+    }
+
+    @Benchmark
+    public PathTemplate.Captures captured(Scratch scratch) {
+        PathTemplate.Captures best = null;
+        for (UriTemplate template : index.candidates(path)) {
+            PathTemplate.Captures current = best == scratch.first ? scratch.second : scratch.first;
+            if (((PathTemplate) template).match(path, current) && (best == null || current.compareTo(best) < 0)) best = current;
+        }
+        return best;
+    }
+
+    @State(Scope.Thread)
+    public static class Scratch {
+        PathTemplate.Captures first = new PathTemplate.Captures();
+        PathTemplate.Captures second = new PathTemplate.Captures();
+    }
+
+    @Benchmark
+    public Optional<TemplateAutomaton.Match<UriTemplate>> combined() {
+        return automaton.match(path);
+    }
+
+    private UriTemplate.MatchResult best(List<UriTemplate> candidates) {
+        UriTemplate.MatchResult best = null;
+        for (UriTemplate template : candidates) {
+            Optional<UriTemplate.MatchResult> result = template.match(path);
+            if (result.isPresent() && (best == null || result.get().compareTo(best) < 0)) best = result.get();
+        }
+        return best;
+    }
+}
@@ -0,0 +1,19 @@
+package org.cyb.rest.benchmark;
+
+import org.cyb.rest.DispatchExecutors;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ExecutorService;
+
+public class Benchmarks {
+    public static void main(String[] args) throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class);
+        // DispatchBenchmark's virtual variant can only run where the JDK has virtual threads
+        DispatchExecutors.virtualThreads().ifPresentOrElse(ExecutorService::shutdown, () -> options.param("threads", "platform"));
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,30 @@
+package org.cyb.rest;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+class BufferPool {
+    private final int chunkSize;
+    private final ArrayBlockingQueue<byte[]> free;
+
+    BufferPool(int chunkSize, int capacity) {
+        this.chunkSize = chunkSize;
+        this.free = new ArrayBlockingQueue<>(capacity);
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    byte[] acquire() {
+        byte[] chunk = free.poll();
+        return chunk != null ? chunk : new byte[chunkSize];
+    }
+
+    void release(byte[] chunk) {
+        if (chunk.length == chunkSize) free.offer(chunk);
+    }
+
+    int available() {
+        return free.size();
+    }
+}
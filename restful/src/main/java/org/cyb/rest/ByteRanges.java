@@ -0,0 +1,161 @@
+package org.cyb.rest;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+record ByteRanges(List<ByteRange> ranges) {
+    static final String Range = "Range";
+    static final String IfRange = "If-Range";
+    static final String AcceptRanges = "Accept-Ranges";
+    static final String ContentRange = "Content-Range";
+    static final int MaxRanges = 16;
+
+    record ByteRange(long first, long last) {
+        long length() {
+            return last - first + 1;
+        }
+
+        String contentRange(long length) {
+            return "bytes " + first + "-" + last + "/" + length;
+        }
+    }
+
+    interface RangeWriter {
+        void write(ServletOutputStream out, long first, long count) throws IOException;
+    }
+
+    boolean isSatisfiable() {
+        return !ranges.isEmpty();
+    }
+
+    static Optional<ByteRanges> parse(String header, long length) {
+        if (header == null || !header.regionMatches(true, 0, "bytes=", 0, 6)) return Optional.empty();
+        List<ByteRange> ranges = new ArrayList<>();
+        String[] specs = header.substring(6).split(",");
+        if (specs.length > MaxRanges) return Optional.empty();
+        for (String spec : specs) {
+            String range = spec.trim();
+            int dash = range.indexOf('-');
+            if (dash < 0) return Optional.empty();
+            try {
+                String first = range.substring(0, dash).trim(), last = range.substring(dash + 1).trim();
+                if (first.isEmpty()) {
+                    long suffix = Long.parseLong(last);
+                    if (suffix < 0) return Optional.empty();
+                    if (suffix > 0 && length > 0) ranges.add(new ByteRange(Math.max(0, length - suffix), length - 1));
+                    continue;
+                }
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (start < 0 || end < start) return Optional.empty();
+                if (start < length) ranges.add(new ByteRange(start, Math.min(end, length - 1)));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new ByteRanges(ranges));
+    }
+
+    static boolean ifRange(String validator, String entityTag, long lastModified) {
+        if (validator == null) return true;
+        String value = validator.trim();
+        if (value.startsWith("\"")) return entityTag != null && value.equals(entityTag);
+        if (value.startsWith("W/")) return false;
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() == lastModified / 1000 * 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    static void writeFile(HttpServletRequest req, HttpServletResponse resp, int status, Path path, MappedFiles mappedFiles) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException(e);
+        }
+        long length = attributes.size(), lastModified = attributes.lastModifiedTime().toMillis();
+        resp.setHeader(AcceptRanges, "bytes");
+        if (!resp.containsHeader(HttpHeaders.LAST_MODIFIED)) resp.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        ByteRanges ranges = null;
+        if (HttpMethod.GET.equals(req.getMethod()) && status == Response.Status.OK.getStatusCode()
+                && ifRange(req.getHeader(IfRange), resp.getHeader(HttpHeaders.ETAG), lastModified))
+            ranges = parse(req.getHeader(Range), length).orElse(null);
+        if (ranges != null && !ranges.isSatisfiable()) {
+            resp.setStatus(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE.getStatusCode());
+            resp.setHeader(ContentRange, "bytes */" + length);
+            resp.setContentLength(0);
+            return;
+        }
+        if (length > FileRegion.MappedRegionLimit || !FileRegion.writesBuffers(resp.getOutputStream())) {
+            try (FileRegion file = FileRegion.of(path)) {
+                write(resp, ranges, length, (out, first, count) ->
+                        FileRegion.of(file.getChannel(), first, count).transferTo(Channels.newChannel(out)));
+            }
+            return;
+        }
+        try (MappedFiles.Mapping mapping = mappedFiles.acquire(path, length, lastModified)) {
+            write(resp, ranges, length, (out, first, count) -> FileRegion.write(out, mapping.slice(first, count)));
+        }
+    }
+
+    private static void write(HttpServletResponse resp, ByteRanges ranges, long length, RangeWriter writer) throws IOException {
+        if (ranges == null) {
+            if (!resp.containsHeader(HttpHeaders.CONTENT_LENGTH)) resp.setContentLengthLong(length);
+            writer.write(resp.getOutputStream(), 0, length);
+            return;
+        }
+        resp.setStatus(Response.Status.PARTIAL_CONTENT.getStatusCode());
+        if (ranges.ranges().size() == 1) {
+            ByteRange range = ranges.ranges().get(0);
+            resp.setHeader(ContentRange, range.contentRange(length));
+            resp.setContentLengthLong(range.length());
+            writer.write(resp.getOutputStream(), range.first(), range.length());
+            return;
+        }
+        ranges.multipart(resp, length, writer);
+    }
+
+    private void multipart(HttpServletResponse resp, long length, RangeWriter writer) throws IOException {
+        String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong()) + Long.toHexString(System.nanoTime());
+        String type = resp.getContentType();
+        byte[][] parts = new byte[ranges.size()][];
+        byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        long total = end.length;
+        for (int i = 0; i < parts.length; i++) {
+            ByteRange range = ranges.get(i);
+            parts[i] = ("\r\n--" + boundary + "\r\n" + (type == null ? "" : HttpHeaders.CONTENT_TYPE + ": " + type + "\r\n")
+                    + ContentRange + ": " + range.contentRange(length) + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+            total += parts[i].length + range.length();
+        }
+        resp.setContentType("multipart/byteranges; boundary=" + boundary);
+        resp.setContentLengthLong(total);
+        ServletOutputStream out = resp.getOutputStream();
+        for (int i = 0; i < parts.length; i++) {
+            out.write(parts[i]);
+            writer.write(out, ranges.get(i).first(), ranges.get(i).length());
+        }
+        out.write(end);
+    }
+}
@@ -0,0 +1,96 @@
+package org.cyb.rest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+class ClockCache<Key, Value> {
+    private final Map<Key, Entry<Key, Value>> entries = new ConcurrentHashMap<>();
+    private final Entry<Key, Value>[] clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private int size;
+    private int hand;
+
+    ClockCache(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.clock = new Entry[capacity];
+    }
+
+    Value get(Key key) {
+        Entry<Key, Value> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) entry.referenced = true;
+        hits.increment();
+        return entry.value;
+    }
+
+    void put(Key key, Value value) {
+        lock.lock();
+        try {
+            if (entries.containsKey(key)) return;
+            Entry<Key, Value> entry = new Entry<>(key, value);
+            if (size < clock.length) {
+                clock[size++] = entry;
+            } else {
+                while (clock[hand].referenced) {
+                    clock[hand].referenced = false;
+                    hand = (hand + 1) % clock.length;
+                }
+                entries.remove(clock[hand].key);
+                evictions.increment();
+                clock[hand] = entry;
+                hand = (hand + 1) % clock.length;
+            }
+            entries.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            Arrays.fill(clock, null);
+            size = 0;
+            hand = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static class Entry<Key, Value> {
+        private final Key key;
+        private final Value value;
+        private volatile boolean referenced;
+
+        Entry(Key key, Value value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
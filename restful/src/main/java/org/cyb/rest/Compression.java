@@ -0,0 +1,132 @@
+package org.cyb.rest;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+public final class Compression {
+    public static final int DefaultMinimumSize = 1024;
+    static final String Gzip = "gzip";
+    static final String Deflate = "deflate";
+    private static final byte[] GzipHeader = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final int level;
+    private final Rule[] rules;
+
+    record Rule(String type, String subtype, int minimumSize) {
+        boolean matches(String type, String subtype) {
+            if (!this.type.equals("*") && !this.type.equalsIgnoreCase(type)) return false;
+            if (this.subtype.equals("*") || this.subtype.equalsIgnoreCase(subtype)) return true;
+            return this.subtype.startsWith("*+") && subtype.regionMatches(true, subtype.length() - this.subtype.length() + 1,
+                    this.subtype, 1, this.subtype.length() - 1);
+        }
+
+        int specificity() {
+            return (type.equals("*") ? 0 : 4) + (subtype.equals("*") ? 0 : subtype.startsWith("*+") ? 1 : 2);
+        }
+    }
+
+    private Compression(int level, Rule[] rules) {
+        this.level = level;
+        this.rules = rules;
+    }
+
+    public static Compression defaults() {
+        Map<String, Integer> minimumSizes = new LinkedHashMap<>();
+        for (String type : new String[]{"text/*", "application/json", "application/*+json", "application/xml",
+                "application/*+xml", "application/javascript"})
+            minimumSizes.put(type, DefaultMinimumSize);
+        return of(Deflater.DEFAULT_COMPRESSION, minimumSizes);
+    }
+
+    public static Compression of(int level, Map<String, Integer> minimumSizes) {
+        return new Compression(level, minimumSizes.entrySet().stream().map(rule -> {
+            String[] type = rule.getKey().trim().split("/", 2);
+            return new Rule(type[0], type.length == 2 ? type[1] : "*", rule.getValue());
+        }).sorted(Comparator.comparingInt(Rule::specificity).reversed()).toArray(Rule[]::new));
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    int minimumSize(String type, String subtype) {
+        for (Rule rule : rules) if (rule.matches(type, subtype)) return rule.minimumSize();
+        return -1;
+    }
+
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) return null;
+        double gzip = -1, deflate = -1, any = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String[] parameter = parts[i].trim().split("=", 2);
+                if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) quality = quality(parameter[1].trim());
+            }
+            switch (coding) {
+                case Gzip, "x-gzip" -> gzip = quality;
+                case Deflate -> deflate = quality;
+                case "*" -> any = quality;
+                default -> {
+                }
+            }
+        }
+        if (gzip < 0) gzip = any;
+        if (deflate < 0) deflate = any;
+        if (gzip <= 0 && deflate <= 0) return null;
+        return gzip >= deflate ? Gzip : Deflate;
+    }
+
+    static boolean varies(Collection<String> vary) {
+        for (String value : vary)
+            for (String field : value.split(","))
+                if (field.trim().equals("*") || field.trim().equalsIgnoreCase("Accept-Encoding")) return true;
+        return false;
+    }
+
+    static PooledOutputStream compress(PooledOutputStream body, boolean gzip, int level, DeflaterPool deflaters, BufferPool buffers) {
+        Deflater deflater = deflaters.acquire(gzip, level);
+        byte[] scratch = buffers.acquire();
+        PooledOutputStream compressed = new PooledOutputStream(buffers);
+        try {
+            CRC32 checksum = gzip ? new CRC32() : null;
+            if (gzip) compressed.write(GzipHeader, 0, GzipHeader.length);
+            for (int i = 0; i < body.chunks(); i++) {
+                deflater.setInput(body.chunk(i), 0, body.length(i));
+                if (gzip) checksum.update(body.chunk(i), 0, body.length(i));
+                while (!deflater.needsInput()) compressed.write(scratch, 0, deflater.deflate(scratch));
+            }
+            deflater.finish();
+            while (!deflater.finished()) compressed.write(scratch, 0, deflater.deflate(scratch));
+            if (gzip) {
+                writeIntLE(compressed, (int) checksum.getValue());
+                writeIntLE(compressed, (int) body.size());
+            }
+            return compressed;
+        } catch (RuntimeException | Error e) {
+            compressed.release();
+            throw e;
+        } finally {
+            buffers.release(scratch);
+            deflaters.release(deflater, gzip);
+        }
+    }
+
+    private static void writeIntLE(PooledOutputStream out, int value) {
+        for (int i = 0; i < 4; i++) out.write(value >>> (i * 8));
+    }
+
+    private static double quality(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
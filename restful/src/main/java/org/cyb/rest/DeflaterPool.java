@@ -0,0 +1,38 @@
+package org.cyb.rest;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+
+class DeflaterPool {
+    private final ArrayBlockingQueue<Deflater> gzip;
+    private final ArrayBlockingQueue<Deflater> zlib;
+
+    DeflaterPool(int capacity) {
+        gzip = new ArrayBlockingQueue<>(capacity);
+        zlib = new ArrayBlockingQueue<>(capacity);
+    }
+
+    Deflater acquire(boolean nowrap, int level) {
+        Deflater deflater = (nowrap ? gzip : zlib).poll();
+        if (deflater == null) return new Deflater(level, nowrap);
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    void release(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        if (!(nowrap ? gzip : zlib).offer(deflater)) deflater.end();
+    }
+
+    int available() {
+        return gzip.size() + zlib.size();
+    }
+
+    void clear() {
+        for (ArrayBlockingQueue<Deflater> pool : List.of(gzip, zlib)) {
+            Deflater deflater;
+            while ((deflater = pool.poll()) != null) deflater.end();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.cyb.rest;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.lang.invoke.MethodType.methodType;
+
+public final class DispatchExecutors {
+    private DispatchExecutors() {
+    }
+
+    // A virtual thread pins its carrier while it blocks inside a synchronized block or a native frame, so
+    // code on the dispatch path should guard blocking sections with java.util.concurrent locks instead
+    // (SingletonProvider initializes under a ReentrantLock for this reason).
+    public static Optional<ExecutorService> virtualThreads() {
+        MethodHandle factory;
+        try {
+            factory = MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of((ExecutorService) factory.invokeExact());
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.cyb.rest;
+
+import jakarta.ws.rs.ext.RuntimeDelegate;
+
+// header value already in wire form; setHeaders writes it verbatim. The router does not pre-encode
+// Content-Type per route: the response is built by the runtime's RuntimeDelegate, whose getMediaType()
+// must keep seeing a MediaType, so constant headers are pre-encoded by resources holding these as constants
+public final class EncodedHeader {
+    private final String value;
+
+    private EncodedHeader(String value) {
+        this.value = value;
+    }
+
+    public static EncodedHeader of(String value) {
+        return new EncodedHeader(value);
+    }
+
+    public static <T> EncodedHeader of(T value) {
+        if (value instanceof String string) return of(string);
+        RuntimeDelegate.HeaderDelegate<T> delegate = RuntimeDelegate.getInstance().createHeaderDelegate((Class<T>) value.getClass());
+        return new EncodedHeader(delegate.toString(value));
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
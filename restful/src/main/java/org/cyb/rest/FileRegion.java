@@ -0,0 +1,112 @@
+package org.cyb.rest;
+
+import jakarta.servlet.ServletOutputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static java.lang.invoke.MethodType.methodType;
+
+public final class FileRegion implements Closeable {
+    static final long MappedRegionLimit = 1 << 30;
+
+    private static final ClassValue<Optional<MethodHandle>> bufferWriters = new ClassValue<>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> type) {
+            try {
+                return Optional.of(MethodHandles.publicLookup().findVirtual(type, "write", methodType(void.class, ByteBuffer.class))
+                        .asType(methodType(void.class, ServletOutputStream.class, ByteBuffer.class)));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private final FileChannel channel;
+    private final long position;
+    private final long count;
+
+    private FileRegion(FileChannel channel, long position, long count) {
+        this.channel = channel;
+        this.position = position;
+        this.count = count;
+    }
+
+    public static FileRegion of(FileChannel channel, long position, long count) {
+        if (position < 0 || count < 0) throw new IllegalArgumentException("negative file region: " + position + "+" + count);
+        return new FileRegion(channel, position, count);
+    }
+
+    public static FileRegion of(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new FileRegion(channel, 0, channel.size());
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    void transferTo(WritableByteChannel target) throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            long sent = channel.transferTo(position + transferred, count - transferred, target);
+            if (sent <= 0) throw new IOException("file region truncated at " + (position + transferred));
+            transferred += sent;
+        }
+    }
+
+    void writeTo(ServletOutputStream out) throws IOException {
+        if (!writesBuffers(out) || count > MappedRegionLimit) {
+            transferTo(Channels.newChannel(out));
+            return;
+        }
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, count);
+        try {
+            write(out, mapped);
+        } finally {
+            MappedFiles.unmap(mapped);
+        }
+    }
+
+    static boolean writesBuffers(ServletOutputStream out) {
+        return bufferWriters.get(out.getClass()).isPresent();
+    }
+
+    static void write(ServletOutputStream out, ByteBuffer content) throws IOException {
+        Optional<MethodHandle> writer = bufferWriters.get(out.getClass());
+        if (writer.isEmpty()) {
+            Channels.newChannel(out).write(content);
+            return;
+        }
+        try {
+            writer.get().invokeExact(out, content);
+        } catch (IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
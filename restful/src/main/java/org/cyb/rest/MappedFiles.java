@@ -0,0 +1,149 @@
+package org.cyb.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.invoke.MethodType.methodType;
+
+class MappedFiles {
+    private static final MethodHandle cleaner = cleaner();
+
+    private final int maxMappings;
+    private final long maxBytes;
+    private final LinkedHashMap<Path, Mapping> mappings = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private long bytes;
+
+    MappedFiles(int maxMappings, long maxBytes) {
+        this.maxMappings = maxMappings;
+        this.maxBytes = maxBytes;
+    }
+
+    Mapping acquire(Path path, long size, long lastModified) throws IOException {
+        lock.lock();
+        try {
+            Mapping mapping = mappings.get(path);
+            if (mapping != null && mapping.size == size && mapping.lastModified == lastModified) {
+                mapping.references++;
+                return mapping;
+            }
+            if (mapping != null) retire(mappings.remove(path));
+            mapping = new Mapping(map(path, size), size, lastModified);
+            mapping.references++;
+            if (size > maxBytes) {
+                mapping.retired = true;
+                return mapping;
+            }
+            for (Iterator<Mapping> eldest = mappings.values().iterator();
+                 eldest.hasNext() && (mappings.size() >= maxMappings || bytes + size > maxBytes); ) {
+                Mapping evicted = eldest.next();
+                eldest.remove();
+                retire(evicted);
+            }
+            mappings.put(path, mapping);
+            bytes += size;
+            return mapping;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            for (Mapping mapping : mappings.values()) retire(mapping);
+            mappings.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return mappings.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void retire(Mapping mapping) {
+        bytes -= mapping.size;
+        mapping.retired = true;
+        if (mapping.references == 0) unmap(mapping.buffer);
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    static void unmap(ByteBuffer buffer) {
+        if (cleaner == null || !buffer.isDirect()) return;
+        try {
+            cleaner.invokeExact(buffer);
+        } catch (Throwable ignored) {
+        }
+    }
+
+    private static MethodHandle cleaner() {
+        try {
+            Class<?> unsafe = Class.forName("sun.misc.Unsafe");
+            Field instance = unsafe.getDeclaredField("theUnsafe");
+            instance.setAccessible(true);
+            return MethodHandles.lookup().findVirtual(unsafe, "invokeCleaner", methodType(void.class, ByteBuffer.class))
+                    .bindTo(instance.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    class Mapping implements Closeable {
+        private final MappedByteBuffer buffer;
+        private final long size;
+        private final long lastModified;
+        private int references;
+        private boolean retired;
+
+        private Mapping(MappedByteBuffer buffer, long size, long lastModified) {
+            this.buffer = buffer;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        ByteBuffer slice(long first, long length) {
+            return buffer.slice((int) first, (int) length);
+        }
+
+        boolean isRetired() {
+            lock.lock();
+            try {
+                return retired;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (--references == 0 && retired) unmap(buffer);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.cyb.rest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class MediaRanges {
+    static final int CacheCapacity = 256;
+    private static final String Wildcard = "*";
+    private static final Map<String, MediaRanges> accepted = new ConcurrentHashMap<>();
+    static final MediaRanges Any = new MediaRanges(new MediaRange[]{new MediaRange(Wildcard, Wildcard, 1000)});
+
+    record MediaRange(String type, String subtype, int quality) {
+        boolean isCompatible(MediaRange other) {
+            if (type == Wildcard || other.type == Wildcard) return true;
+            if (!type.equals(other.type)) return false;
+            return subtype == Wildcard || other.subtype == Wildcard || subtype.equals(other.subtype);
+        }
+
+        int specificity() {
+            return (type == Wildcard ? 0 : 1) + (subtype == Wildcard ? 0 : 1);
+        }
+    }
+
+    private final MediaRange[] ranges;
+
+    private MediaRanges(MediaRange[] ranges) {
+        this.ranges = ranges;
+    }
+
+    static MediaRanges accept(String[] values) {
+        String value = values.length == 1 ? values[0] : String.join(",", values);
+        if (value.isBlank()) return Any;
+        MediaRanges ranges = accepted.get(value);
+        if (ranges != null) return ranges;
+        ranges = parse(value);
+        ranges = new MediaRanges(Arrays.stream(ranges.ranges).filter(range -> range.quality() > 0)
+                .sorted(Comparator.comparingInt(MediaRange::quality).thenComparingInt(MediaRange::specificity).reversed())
+                .toArray(MediaRange[]::new));
+        if (accepted.size() < CacheCapacity) accepted.putIfAbsent(value, ranges);
+        return ranges;
+    }
+
+    static MediaRanges produces(String... values) {
+        return values.length == 0 ? Any : parse(String.join(",", values));
+    }
+
+    MediaRange[] ranges() {
+        return ranges;
+    }
+
+    boolean isCompatible(MediaRange range) {
+        for (MediaRange candidate : ranges) if (candidate.isCompatible(range)) return true;
+        return false;
+    }
+
+    private static MediaRanges parse(String value) {
+        List<MediaRange> ranges = new ArrayList<>();
+        for (String element : value.split(",")) {
+            String[] parts = element.split(";");
+            String[] type = parts[0].trim().toLowerCase().split("/", 2);
+            if (type[0].isEmpty()) continue;
+            int quality = 1000;
+            for (int i = 1; i < parts.length; i++) {
+                String[] parameter = parts[i].trim().split("=", 2);
+                if (parameter.length == 2 && parameter[0].trim().equalsIgnoreCase("q")) quality = quality(parameter[1].trim());
+            }
+            ranges.add(new MediaRange(type[0].intern(), (type.length == 2 ? type[1].trim() : Wildcard).intern(), quality));
+        }
+        return new MediaRanges(ranges.toArray(MediaRange[]::new));
+    }
+
+    private static int quality(String value) {
+        try {
+            return (int) Math.round(Math.min(1, Math.max(0, Double.parseDouble(value))) * 1000);
+        } catch (NumberFormatException e) {
+            return 1000;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package org.cyb.rest;
+
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.ResourceContext;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.lang.invoke.MethodType.methodType;
+
+class ParameterBinding {
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private static final Map<Class<?>, Class<?>> primitives = Map.of(Integer.class, int.class, Long.class, long.class,
+            Boolean.class, boolean.class, Short.class, short.class, Byte.class, byte.class,
+            Float.class, float.class, Double.class, double.class);
+
+    record Sources(ResourceContext resourceContext, UriInfo uriInfo, HttpHeaders headers, SuspendedResponse suspended) {
+        static String path(Sources sources, String name) {
+            return sources.uriInfo.getPathParameters().getFirst(name);
+        }
+
+        static String query(Sources sources, String name) {
+            return sources.uriInfo.getQueryParameters().getFirst(name);
+        }
+
+        static String header(Sources sources, String name) {
+            List<String> values = sources.headers.getRequestHeader(name);
+            return values == null || values.isEmpty() ? null : values.get(0);
+        }
+    }
+
+    private final MethodHandle invoker;
+    private final boolean uriInfoRequired;
+    private final boolean headersRequired;
+    private final boolean suspended;
+
+    ParameterBinding(Method method) {
+        Parameter[] parameters = method.getParameters();
+        MethodHandle[] converters = new MethodHandle[parameters.length];
+        boolean uriInfo = false, headers = false, suspended = false;
+        for (int i = 0; i < parameters.length; i++) {
+            converters[i] = converter(parameters[i]);
+            uriInfo |= parameters[i].isAnnotationPresent(PathParam.class) || parameters[i].isAnnotationPresent(QueryParam.class)
+                    || parameters[i].getType() == UriInfo.class;
+            headers |= parameters[i].isAnnotationPresent(HeaderParam.class) || parameters[i].getType() == HttpHeaders.class;
+            suspended |= parameters[i].isAnnotationPresent(Suspended.class);
+        }
+        this.uriInfoRequired = uriInfo;
+        this.headersRequired = headers;
+        this.suspended = suspended;
+        this.invoker = invoker(method, converters);
+    }
+
+    boolean isSuspended() {
+        return suspended;
+    }
+
+    Object invoke(Object resource, ResourceContext resourceContext, UriInfoBuilder builder) {
+        Sources sources = new Sources(resourceContext, uriInfoRequired ? builder.createUriInfo() : null,
+                headersRequired ? builder.createHttpHeaders() : null, suspended ? new SuspendedResponse() : null);
+        try {
+            Object result = invoker.invokeExact(resource, sources);
+            return suspended ? sources.suspended() : result;
+        } catch (Throwable e) {
+            // rethrown as is, so an ExceptionMapper registered for a checked exception still finds it
+            throw ParameterBinding.<RuntimeException>sneaky(e);
+        }
+    }
+
+    private static <E extends Throwable> E sneaky(Throwable e) throws E {
+        throw (E) e;
+    }
+
+    private static MethodHandle invoker(Method method, MethodHandle[] converters) {
+        method.trySetAccessible();
+        try {
+            MethodHandle target = lookup.unreflect(method);
+            target = target.asType(target.type().changeParameterType(0, Object.class).changeReturnType(Object.class));
+            int[] reorder = new int[converters.length + 1];
+            for (int i = 1; i < reorder.length; i++) reorder[i] = 1;
+            return MethodHandles.permuteArguments(MethodHandles.filterArguments(target, 1, converters),
+                    methodType(Object.class, Object.class, Sources.class), reorder);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("resource method not accessible: " + method, e);
+        }
+    }
+
+    private static MethodHandle converter(Parameter parameter) {
+        Class<?> type = parameter.getType();
+        try {
+            if (parameter.isAnnotationPresent(Context.class)) {
+                String accessor = type == UriInfo.class ? "uriInfo" : type == HttpHeaders.class ? "headers"
+                        : type == ResourceContext.class ? "resourceContext" : null;
+                if (accessor == null) return failure("unsupported", parameter);
+                return lookup.findVirtual(Sources.class, accessor, methodType(type));
+            }
+            if (parameter.isAnnotationPresent(Suspended.class)) {
+                if (type != AsyncResponse.class) throw unsupported(parameter);
+                return lookup.findVirtual(Sources.class, "suspended", methodType(SuspendedResponse.class))
+                        .asType(methodType(type, Sources.class));
+            }
+            PathParam path = parameter.getAnnotation(PathParam.class);
+            QueryParam query = parameter.getAnnotation(QueryParam.class);
+            HeaderParam header = parameter.getAnnotation(HeaderParam.class);
+            MethodHandle source;
+            String failure = "notFound";
+            if (path != null) source = source("path", path.value());
+            else if (query != null) source = source("query", query.value());
+            else if (header != null) {
+                source = source("header", header.value());
+                failure = "badRequest";
+            } else return failure(parameter.getAnnotations().length == 0 ? "notSupported" : "unsupported", parameter);
+
+            DefaultValue defaultValue = parameter.getAnnotation(DefaultValue.class);
+            if (defaultValue != null) source = MethodHandles.filterReturnValue(source,
+                    MethodHandles.insertArguments(lookup.findStatic(ParameterBinding.class, "orDefault",
+                            methodType(String.class, String.class, String.class)), 1, defaultValue.value()));
+
+            Optional<MethodHandle> conversion = conversion(type);
+            if (conversion.isEmpty()) return failure("unsupported", parameter);
+            MethodHandle converter = MethodHandles.filterReturnValue(source, conversion.get());
+            MethodHandle fail = lookup.findStatic(ParameterBinding.class, failure, methodType(Object.class, RuntimeException.class));
+            return MethodHandles.catchException(converter, RuntimeException.class,
+                    MethodHandles.dropArguments(fail.asType(methodType(type, RuntimeException.class)), 1, Sources.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle source(String name, String parameter) throws NoSuchMethodException, IllegalAccessException {
+        return MethodHandles.insertArguments(lookup.findStatic(Sources.class, name,
+                methodType(String.class, Sources.class, String.class)), 1, parameter);
+    }
+
+    static Optional<MethodHandle> conversion(Class<?> type) {
+        if (type == String.class) return Optional.of(MethodHandles.identity(String.class));
+        Optional<MethodHandle> conversion = parser(type).or(() -> valueOf(type));
+        return conversion.map(handle -> MethodHandles.guardWithTest(isNull(),
+                MethodHandles.dropArguments(MethodHandles.zero(type), 0, String.class), handle));
+    }
+
+    private static Optional<MethodHandle> parser(Class<?> type) {
+        Class<?> primitive = type.isPrimitive() ? type : primitives.get(type);
+        if (primitive == null || primitive == char.class || primitive == void.class) return Optional.empty();
+        Class<?> wrapper = MethodType.methodType(primitive).wrap().returnType();
+        String name = "parse" + Character.toUpperCase(primitive.getName().charAt(0)) + primitive.getName().substring(1);
+        try {
+            return Optional.of(lookup.findStatic(wrapper, name, methodType(primitive, String.class)).asType(methodType(type, String.class)));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<MethodHandle> valueOf(Class<?> type) {
+        try {
+            return Optional.of(lookup.findConstructor(type, methodType(void.class, String.class)));
+        } catch (NoSuchMethodException | IllegalAccessException ignored) {
+        }
+        for (String name : List.of("fromString", "valueOf")) {
+            try {
+                Method factory = type.getMethod(name, String.class);
+                if (Modifier.isStatic(factory.getModifiers()) && type.isAssignableFrom(factory.getReturnType()))
+                    return Optional.of(lookup.unreflect(factory).asType(methodType(type, String.class)));
+            } catch (NoSuchMethodException | IllegalAccessException ignored) {
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static MethodHandle isNull() {
+        try {
+            return lookup.findStatic(Objects.class, "isNull", methodType(boolean.class, Object.class))
+                    .asType(methodType(boolean.class, String.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String orDefault(String value, String defaultValue) {
+        return value == null ? defaultValue : value;
+    }
+
+    private static Object notFound(RuntimeException e) {
+        if (e instanceof WebApplicationException) throw e;
+        throw new NotFoundException(e);
+    }
+
+    private static Object badRequest(RuntimeException e) {
+        if (e instanceof WebApplicationException) throw e;
+        throw new BadRequestException(e);
+    }
+
+    // sources this binding can not supply fail the request, not the resource class
+    private static MethodHandle failure(String name, Parameter parameter) throws NoSuchMethodException, IllegalAccessException {
+        MethodHandle fail = MethodHandles.insertArguments(lookup.findStatic(ParameterBinding.class, name,
+                methodType(Object.class, String.class)), 0, parameter.toString());
+        return MethodHandles.dropArguments(fail.asType(methodType(parameter.getType())), 0, Sources.class);
+    }
+
+    private static Object notSupported(String parameter) {
+        throw new NotSupportedException("no entity provider for resource method parameter: " + parameter);
+    }
+
+    private static Object unsupported(String parameter) {
+        throw new InternalServerErrorException("unsupported resource method parameter: " + parameter);
+    }
+
+    private static IllegalArgumentException unsupported(Parameter parameter) {
+        return new IllegalArgumentException("unsupported resource method parameter: " + parameter);
+    }
+}
@@ -0,0 +1,71 @@
+package org.cyb.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+class PooledOutputStream extends OutputStream {
+    private final BufferPool pool;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private int position;
+    private long size;
+
+    PooledOutputStream(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(int b) {
+        if (chunks.isEmpty() || position == pool.getChunkSize()) next();
+        chunks.get(chunks.size() - 1)[position++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            if (chunks.isEmpty() || position == pool.getChunkSize()) next();
+            int count = Math.min(len, pool.getChunkSize() - position);
+            System.arraycopy(b, off, chunks.get(chunks.size() - 1), position, count);
+            position += count;
+            off += count;
+            len -= count;
+            size += count;
+        }
+    }
+
+    private void next() {
+        chunks.add(pool.acquire());
+        position = 0;
+    }
+
+    long size() {
+        return size;
+    }
+
+    int chunks() {
+        return chunks.size();
+    }
+
+    byte[] chunk(int index) {
+        return chunks.get(index);
+    }
+
+    int length(int index) {
+        return index == chunks.size() - 1 ? position : pool.getChunkSize();
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        for (int i = 0; i < chunks.size(); i++) out.write(chunks.get(i), 0, length(i));
+    }
+
+    void release(int index) {
+        byte[] chunk = chunks.set(index, null);
+        if (chunk != null) pool.release(chunk);
+    }
+
+    void release() {
+        for (int i = 0; i < chunks.size(); i++) release(i);
+    }
+}
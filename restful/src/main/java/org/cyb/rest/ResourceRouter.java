@@ -3,15 +3,21 @@ package org.cyb.rest;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.container.ResourceContext;
 import jakarta.ws.rs.core.GenericEntity;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -26,6 +32,10 @@ public interface ResourceRouter {
         UriTemplate getUriTemplate();
 
         GenericEntity<?> call(ResourceContext resourceContext, UriInfoBuilder builder);
+
+        default Map<String, String> getPathParameters() {
+            return Map.of();
+        }
     }
 
     interface Resource {
@@ -34,45 +44,126 @@ public interface ResourceRouter {
 }
 
 class DefaultResourceRouter implements ResourceRouter {
+    static final int RouteCacheCapacity = 1024;
 
     private Runtime runtime;
-    private List<RootResource> rootResources;
+    private boolean combined;
+    private volatile Routes routes;
 
     public DefaultResourceRouter(Runtime runtime, List<RootResource> rootResources) {
+        this(runtime, rootResources, false);
+    }
+
+    public DefaultResourceRouter(Runtime runtime, List<RootResource> rootResources, boolean combined) {
         this.runtime = runtime;
-        this.rootResources = rootResources;
+        this.combined = combined;
+        setRootResources(rootResources);
+    }
+
+    public void setRootResources(List<RootResource> rootResources) {
+        boolean paths = rootResources.stream().allMatch(resource -> resource.getUriTemplate() instanceof PathTemplate);
+        routes = new Routes(rootResources, paths, new RouteIndex<>(rootResources, RootResource::getUriTemplate),
+                combined ? new TemplateAutomaton<>(rootResources, RootResource::getUriTemplate) : null,
+                new ClockCache<>(RouteCacheCapacity));
+    }
+
+    ClockCache<RouteKey, Route> getRouteCache() {
+        return routes.cache();
     }
 
     @Override
     public OutboundResponse dispatch(HttpServletRequest request, ResourceContext resourceContext) {
+        Routes routes = this.routes;
         String path = request.getServletPath();
 
         UriInfoBuilder uri = runtime.createUriInfoBuilder(request);
 
-
-        Optional<ResourceMethod> resourceMethod = rootResources.stream()
-                .map(resource -> matched(path, resource))
-                .filter(Result::isMatched)
-                .sorted()
-                .findFirst()
-                .flatMap(result -> result.findResourceMethod(request, uri));
-
-        if (rootResources.stream().map(resource -> matched(path, resource))
-                .filter(Result::isMatched)
-                .sorted()
-                .findFirst()
-                .isEmpty()) {
-            return (OutboundResponse) Response.status(Response.Status.NOT_FOUND).build();
+        RouteKey key = new RouteKey(path, request.getMethod(), accept(request));
+        Route route = routes.cache().get(key);
+        if (route == null) {
+            route = routes.resolve(key, key.accept().isEmpty() ? new String[0] : new String[]{key.accept()}, uri);
+            if (route == Route.NotFound || route == Route.NotAcceptable) {
+                return (OutboundResponse) Response.status(route == Route.NotFound
+                        ? Response.Status.NOT_FOUND : Response.Status.NOT_ACCEPTABLE).build();
+            }
+            routes.cache().put(key, route);
         }
 
-        return (OutboundResponse) resourceMethod.map(m -> m.call(resourceContext, uri))
+        uri.pushMatchedPath(route.matched());
+        route.parameters().forEach(uri::addParameter);
+        return (OutboundResponse) Optional.ofNullable(route.method().call(resourceContext, uri))
                 .map(entity -> Response.ok(entity).build())
                 .orElseGet(() -> Response.noContent().build());
     }
 
-    private Result matched(String path, RootResource resource) {
-        return new Result(resource.getUriTemplate().match(path),
-                resource);
+    private static String accept(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT);
+        if (headers == null || !headers.hasMoreElements()) return "";
+        String accept = headers.nextElement();
+        if (!headers.hasMoreElements()) return accept;
+        StringBuilder joined = new StringBuilder(accept);
+        while (headers.hasMoreElements()) joined.append(',').append(headers.nextElement());
+        return joined.toString();
+    }
+
+    record RouteKey(String path, String method, String accept) {
+    }
+
+    record Route(ResourceMethod method, String matched, Map<String, String> parameters) {
+        static final Route NotFound = new Route(null, null, Map.of());
+        static final Route NotAcceptable = new Route(null, null, Map.of());
+    }
+
+    record Routes(List<RootResource> rootResources, boolean paths, RouteIndex<RootResource> index,
+                  TemplateAutomaton<RootResource> automaton, ClockCache<RouteKey, Route> cache) {
+
+        private Route resolve(RouteKey key, String[] mediaTypes, UriInfoBuilder uri) {
+            Result matched = automaton != null ? combined(key.path()) : paths ? captured(key.path()) : indexed(key.path());
+            if (matched == null) return Route.NotFound;
+            UriTemplate.MatchResult result = matched.matched().get();
+            Optional<ResourceMethod> method = matched.resource().matches(result.getRemaining(), key.method(), mediaTypes, uri);
+            if (method.isPresent()) return new Route(method.get(), result.getMatched(), parameters(result, method.get()));
+            // a method that only fails on Accept is 406, everything else stays 404
+            return mediaTypes.length > 0 && matched.resource().matches(result.getRemaining(), key.method(), new String[0], uri).isPresent()
+                    ? Route.NotAcceptable : Route.NotFound;
+        }
+
+        private Result indexed(String path) {
+            Result matched = null;
+            for (RootResource resource : index.candidates(path)) {
+                Result result = new Result(resource.getUriTemplate().match(path), resource);
+                if (result.isMatched() && (matched == null || result.compareTo(matched) < 0)) matched = result;
+            }
+            return matched;
+        }
+
+        private Result captured(String path) {
+            // one scratch pair per resolve, so no per-thread state is kept for virtual-thread dispatch
+            PathTemplate.Captures[] scratch = {new PathTemplate.Captures(), new PathTemplate.Captures()};
+            PathTemplate.Captures matched = null;
+            RootResource resource = null;
+            for (RootResource candidate : index.candidates(path)) {
+                PathTemplate.Captures current = matched == scratch[0] ? scratch[1] : scratch[0];
+                if (((PathTemplate) candidate.getUriTemplate()).match(path, current)
+                        && (matched == null || current.compareTo(matched) < 0)) {
+                    matched = current;
+                    resource = candidate;
+                }
+            }
+            return matched == null ? null : new Result(Optional.of(matched.toResult()), resource);
+        }
+
+        private Result combined(String path) {
+            return automaton.match(path).map(match -> new Result(Optional.of(match.result()), match.route())).orElse(null);
+        }
+
+        // root and method level path parameters, replayed into every UriInfoBuilder served by the route
+        private static Map<String, String> parameters(UriTemplate.MatchResult result, ResourceMethod method) {
+            Map<String, String> parameters = new HashMap<>();
+            if (result.getMatchedPathParameters() != null) parameters.putAll(result.getMatchedPathParameters());
+            parameters.putAll(method.getPathParameters());
+            return Map.copyOf(parameters);
+        }
     }
 
     record Result(Optional<UriTemplate.MatchResult> matched, RootResource resource) implements Comparable<Result> {
@@ -84,12 +175,6 @@ class DefaultResourceRouter implements ResourceRouter {
         private boolean isMatched() {
             return matched.isPresent();
         }
-
-        private Optional<ResourceMethod> findResourceMethod(HttpServletRequest request, UriInfoBuilder uri) {
-            return matched.flatMap(result -> resource.matches(result.getRemaining(), request.getMethod(),
-                    Collections.list(request.getHeaders(HttpHeaders.ACCEPT)).toArray(String[]::new),
-                    uri));
-        }
     }
 }
 
@@ -98,15 +183,16 @@ class RootResourceClass implements ResourceRouter.RootResource {
 
     private final PathTemplate uriTemplate;
     private Class<?> resourceClass;
-    private List<ResourceRouter.ResourceMethod> resourceMethods;
+    private Map<String, List<DefaultResourceMethod>> httpMethods;
 
     public RootResourceClass(Class<?> resourceClass) {
         this.resourceClass = resourceClass;
         this.uriTemplate = new PathTemplate(resourceClass.getAnnotation(Path.class).value());
 
-        resourceMethods = Arrays.stream(resourceClass.getMethods()).filter(m -> Arrays.stream(m.getAnnotations())
+        httpMethods = Arrays.stream(resourceClass.getMethods()).filter(m -> Arrays.stream(m.getAnnotations())
                         .anyMatch(a -> a.annotationType().isAnnotationPresent(HttpMethod.class)))
-                .map(m -> (ResourceRouter.ResourceMethod) new DefaultResourceMethod(m)).collect(Collectors.toList());
+                .map(m -> new DefaultResourceMethod(resourceClass, m))
+                .collect(Collectors.groupingBy(DefaultResourceMethod::getHttpMethod));
     }
 
     @Override
@@ -116,21 +202,63 @@ class RootResourceClass implements ResourceRouter.RootResource {
 
     @Override
     public Optional<ResourceRouter.ResourceMethod> matches(String path, String method, String[] mediaTypes, UriInfoBuilder builder) {
-        UriTemplate.MatchResult result = uriTemplate.match(path).get();
-        String remaining = result.getRemaining();
-        return resourceMethods.stream().filter(m -> m.getUriTemplate().match(remaining)
-                .map(r -> r.getRemaining() == null).orElse(false))
-                .findFirst();
+        if (path == null) return Optional.empty();
+        PathTemplate.Captures[] scratch = {new PathTemplate.Captures(), new PathTemplate.Captures()};
+        PathTemplate.Captures best = null;
+        DefaultResourceMethod first = null;
+        List<DefaultResourceMethod> tied = null;
+        for (DefaultResourceMethod candidate : httpMethods.getOrDefault(method, List.of())) {
+            PathTemplate.Captures current = best == scratch[0] ? scratch[1] : scratch[0];
+            if (!candidate.uriTemplate.match(path, current) || current.hasRemaining()) continue;
+            int order = best == null ? -1 : current.compareTo(best);
+            if (order < 0) {
+                best = current;
+                first = candidate;
+                tied = null;
+            } else if (order == 0) {
+                if (tied == null) tied = new ArrayList<>(List.of(first));
+                tied.add(candidate);
+            }
+        }
+        if (first == null) return Optional.empty();
+        List<DefaultResourceMethod> candidates = tied == null ? List.of(first) : tied;
+        for (MediaRanges.MediaRange accepted : MediaRanges.accept(mediaTypes).ranges())
+            for (DefaultResourceMethod candidate : candidates) {
+                if (!candidate.produces.isCompatible(accepted)) continue;
+                if (candidate == first) return Optional.of(candidate.bind(best));
+                // a tied method's captures were overwritten by later candidates, so match it once more
+                PathTemplate.Captures captures = best == scratch[0] ? scratch[1] : scratch[0];
+                candidate.uriTemplate.match(path, captures);
+                return Optional.of(candidate.bind(captures));
+            }
+        return Optional.empty();
     }
 
     static class DefaultResourceMethod implements ResourceRouter.ResourceMethod {
 
-        private UriTemplate uriTemplate;
+        private PathTemplate uriTemplate;
+        private Class<?> resourceClass;
         private Method method;
+        private String httpMethod;
+        private MediaRanges produces;
+        private ParameterBinding binding;
+        private Type entityType;
 
         public DefaultResourceMethod(Method method) {
+            this(method.getDeclaringClass(), method);
+        }
+
+        public DefaultResourceMethod(Class<?> resourceClass, Method method) {
+            this.resourceClass = resourceClass;
             this.method = method;
             this.uriTemplate = new PathTemplate(method.getAnnotation(Path.class).value());
+            this.httpMethod = Arrays.stream(method.getAnnotations()).map(a -> a.annotationType().getAnnotation(HttpMethod.class))
+                    .filter(Objects::nonNull).map(HttpMethod::value).findFirst().orElse(null);
+            Produces produces = Optional.ofNullable(method.getAnnotation(Produces.class))
+                    .orElseGet(() -> resourceClass.getAnnotation(Produces.class));
+            this.produces = produces == null ? MediaRanges.Any : MediaRanges.produces(produces.value());
+            this.binding = new ParameterBinding(method);
+            this.entityType = binding.isSuspended() ? SuspendedResponse.class : method.getGenericReturnType();
         }
 
         @Override
@@ -138,9 +266,20 @@ class RootResourceClass implements ResourceRouter.RootResource {
             return uriTemplate;
         }
 
+        String getHttpMethod() {
+            return httpMethod;
+        }
+
+        ResourceRouter.ResourceMethod bind(PathTemplate.Captures captures) {
+            Map<String, String> parameters = captures.toResult().getMatchedPathParameters();
+            return parameters.isEmpty() ? this : new BoundResourceMethod(this, Map.copyOf(parameters));
+        }
+
         @Override
         public GenericEntity<?> call(ResourceContext resourceContext, UriInfoBuilder builder) {
-            return null;
+            Object result = binding.invoke(resourceContext.getResource(resourceClass), resourceContext, builder);
+            if (result == null || result instanceof GenericEntity<?>) return (GenericEntity<?>) result;
+            return new GenericEntity<>(result, entityType);
         }
 
         @Override
@@ -148,4 +287,27 @@ class RootResourceClass implements ResourceRouter.RootResource {
             return method.getDeclaringClass().getSimpleName() + "." + method.getName();
         }
     }
-}
\ No newline at end of file
+
+    record BoundResourceMethod(ResourceRouter.ResourceMethod method, Map<String, String> parameters)
+            implements ResourceRouter.ResourceMethod {
+        @Override
+        public UriTemplate getUriTemplate() {
+            return method.getUriTemplate();
+        }
+
+        @Override
+        public GenericEntity<?> call(ResourceContext resourceContext, UriInfoBuilder builder) {
+            return method.call(resourceContext, builder);
+        }
+
+        @Override
+        public Map<String, String> getPathParameters() {
+            return parameters;
+        }
+
+        @Override
+        public String toString() {
+            return method.toString();
+        }
+    }
+}
@@ -1,73 +1,373 @@
 package org.cyb.rest;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.GenericEntity;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.MessageBodyWriter;
 import jakarta.ws.rs.ext.Providers;
 import jakarta.ws.rs.ext.RuntimeDelegate;
 
+import java.io.File;
 import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
 public class ResourceServlet extends HttpServlet {
+    static final int WriterCacheCapacity = 1024;
+    static final Duration DefaultAsyncTimeout = Duration.ofSeconds(30);
+    static final int BufferChunkSize = 8192;
+    static final int BufferPoolCapacity = 256;
+    static final int MappedFileCacheCapacity = 64;
+    static final long MappedFileCacheBytes = 256L << 20;
+    static final int DeflaterPoolCapacity = 64;
+
     private Runtime runtime;
+    private Duration asyncTimeout;
+    private BufferPool buffers = new BufferPool(BufferChunkSize, BufferPoolCapacity);
+    private MappedFiles mappedFiles = new MappedFiles(MappedFileCacheCapacity, MappedFileCacheBytes);
+    private DeflaterPool deflaters = new DeflaterPool(DeflaterPoolCapacity);
     private Providers providers;
+    private ClockCache<WriterKey, Optional<MessageBodyWriter>> writers = new ClockCache<>(WriterCacheCapacity);
+    // plain maps owned by this servlet: a ClassValue would pin the providers on JDK exception classes after redeploy
+    private Map<Class<?>, Optional<ExceptionMapper>> exceptionMappers = new ConcurrentHashMap<>();
+    private Map<Class<?>, Optional<RuntimeDelegate.HeaderDelegate>> headerDelegates = new ConcurrentHashMap<>();
 
     public ResourceServlet(Runtime runtime) {
+        this(runtime, DefaultAsyncTimeout);
+    }
+
+    public ResourceServlet(Runtime runtime, Duration asyncTimeout) {
         this.runtime = runtime;
+        this.asyncTimeout = asyncTimeout;
         providers = runtime.getProviders();
     }
 
+    @Override
+    public void destroy() {
+        mappedFiles.clear();
+        deflaters.clear();
+        super.destroy();
+    }
+
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         ResourceRouter router = runtime.getResourceRouter();
+        Optional<Executor> executor = runtime.getDispatchExecutor();
+        if (executor.isPresent()) {
+            CompletionStage<OutboundResponse> dispatched;
+            try {
+                dispatched = CompletableFuture.supplyAsync(() -> router.dispatch(req, runtime.createResourceContext(req, resp)), executor.get())
+                        .thenCompose(ResourceServlet::completed);
+            } catch (RejectedExecutionException e) {
+                dispatched = CompletableFuture.failedFuture(e);
+            }
+            suspend(req, resp, dispatched, OutboundResponse.class);
+            return;
+        }
 
-        respond(resp, () -> router.dispatch(req, runtime.createResourceContext(req, resp)));
+        respond(req, resp, () -> router.dispatch(req, runtime.createResourceContext(req, resp)));
     }
 
-    private void respond(HttpServletResponse resp, Supplier<OutboundResponse> supplier) {
+    private static CompletionStage<OutboundResponse> completed(OutboundResponse response) {
+        GenericEntity entity = response.getGenericEntity();
+        if (entity != null && entity.getEntity() instanceof CompletionStage<?> stage)
+            return stage.thenApply(value -> resumed(value, entity.getType()));
+        return CompletableFuture.completedFuture(response);
+    }
+
+    private boolean respond(HttpServletRequest req, HttpServletResponse resp, Supplier<OutboundResponse> supplier) {
         try {
-            respond(resp, supplier.get());
-        } catch (WebApplicationException exception) {
-            respond(resp, () -> (OutboundResponse) exception.getResponse());
+            return respond(req, resp, supplier.get());
         } catch (Throwable throwable) {
-            respond(resp, () -> from(throwable));
+            return failed(req, resp, throwable);
         }
     }
 
+    private boolean failed(HttpServletRequest req, HttpServletResponse resp, Throwable throwable) {
+        if (throwable instanceof WebApplicationException exception)
+            return respond(req, resp, () -> (OutboundResponse) exception.getResponse());
+        return respond(req, resp, () -> from(throwable));
+    }
+
     private OutboundResponse from(Throwable throwable) {
-        ExceptionMapper mapper = providers.getExceptionMapper(throwable.getClass());
+        ExceptionMapper mapper = exceptionMappers.computeIfAbsent(throwable.getClass(),
+                type -> Optional.ofNullable(providers.getExceptionMapper((Class<Throwable>) type))).orElse(null);
         return (OutboundResponse) mapper.toResponse(throwable);
     }
 
-    private void respond(HttpServletResponse resp, OutboundResponse response) throws IOException {
+    private boolean respond(HttpServletRequest req, HttpServletResponse resp, OutboundResponse response) throws IOException {
+        GenericEntity entity = response.getGenericEntity();
+        if (entity != null && entity.getEntity() instanceof CompletionStage<?> stage)
+            return suspend(req, resp, stage, entity.getType());
         resp.setStatus(response.getStatus());
         setHeaders(resp, response.getHeaders());
-        writeBody(resp, response, response.getGenericEntity());
+        return writeBody(req, resp, response, entity);
+    }
+
+    private boolean suspend(HttpServletRequest req, HttpServletResponse resp, CompletionStage<?> stage, Type type) {
+        if (stage instanceof CompletableFuture<?> future && future.isDone()) {
+            try {
+                return resume(req, resp, future.join(), null, type);
+            } catch (CompletionException | CancellationException e) {
+                return resume(req, resp, null, e, type);
+            }
+        }
+        AsyncContext async = req.startAsync(req, resp);
+        AtomicBoolean done = new AtomicBoolean();
+        Runnable expired = () -> {
+            if (stage instanceof SuspendedResponse suspended) {
+                if (suspended.timeout() || !suspended.isSuspended()) return;
+                suspended.cancel();
+            }
+            if (done.compareAndSet(false, true)
+                    && !respond(req, resp, () -> (OutboundResponse) Response.status(Response.Status.SERVICE_UNAVAILABLE).build()))
+                async.complete();
+        };
+        if (stage instanceof SuspendedResponse suspended) {
+            async.setTimeout(0);
+            suspended.suspend(asyncTimeout.toMillis(), expired);
+        } else {
+            async.setTimeout(asyncTimeout.toMillis());
+            async.addListener(new AsyncListener() {
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    expired.run();
+                }
+
+                @Override
+                public void onComplete(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+        }
+        stage.whenComplete((value, error) -> {
+            if (done.compareAndSet(false, true) && !resume(req, resp, value, error, type)) async.complete();
+        });
+        return true;
+    }
+
+    private boolean resume(HttpServletRequest req, HttpServletResponse resp, Object value, Throwable error, Type type) {
+        if (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+        if (error != null) return failed(req, resp, error);
+        return respond(req, resp, () -> resumed(value, type));
+    }
+
+    private static OutboundResponse resumed(Object value, Type type) {
+        if (value instanceof Response response) return (OutboundResponse) response;
+        if (value == null) return (OutboundResponse) Response.noContent().build();
+        if (value instanceof GenericEntity<?> entity) return (OutboundResponse) Response.ok(entity).build();
+        Type entityType = type instanceof ParameterizedType parameterized && parameterized.getActualTypeArguments().length == 1
+                && !(parameterized.getActualTypeArguments()[0] instanceof TypeVariable<?>)
+                && !(parameterized.getActualTypeArguments()[0] instanceof WildcardType)
+                ? parameterized.getActualTypeArguments()[0] : value.getClass();
+        return (OutboundResponse) Response.ok(new GenericEntity<>(value, entityType)).build();
     }
 
-    private void writeBody(HttpServletResponse resp, OutboundResponse response, GenericEntity entity) throws IOException {
-        if (entity != null) {
-            MessageBodyWriter writer = providers.getMessageBodyWriter(entity.getRawType(),
-                    entity.getType(),
-                    response.getAnnotations(),
-                    response.getMediaType());
+    private boolean writeBody(HttpServletRequest req, HttpServletResponse resp, OutboundResponse response, GenericEntity entity) throws IOException {
+        if (entity == null) return false;
+        if (entity.getEntity() instanceof FileRegion region) {
+            try (region) {
+                if (!resp.containsHeader(HttpHeaders.CONTENT_LENGTH)) resp.setContentLengthLong(region.getCount());
+                region.writeTo(resp.getOutputStream());
+            }
+            return false;
+        }
+        if (entity.getEntity() instanceof File || entity.getEntity() instanceof Path) {
+            ByteRanges.writeFile(req, resp, response.getStatus(),
+                    entity.getEntity() instanceof File file ? file.toPath() : (Path) entity.getEntity(), mappedFiles);
+            return false;
+        }
+        MessageBodyWriter writer = writer(entity.getRawType(), entity.getType(), response.getAnnotations(), response.getMediaType());
+        PooledOutputStream body = new PooledOutputStream(buffers);
+        try {
             writer.writeTo(entity.getEntity(), entity.getRawType(), entity.getType(),
                     response.getAnnotations(), response.getMediaType(),
-                    response.getHeaders(), resp.getOutputStream());
+                    response.getHeaders(), body);
+            Optional<Compression> compression = runtime.getCompression();
+            if (compression.isPresent()) body = encode(req, resp, response.getMediaType(), compression.get(), body);
+        } catch (Throwable e) {
+            body.release();
+            throw e;
+        }
+        if (!resp.containsHeader(HttpHeaders.CONTENT_LENGTH)) resp.setContentLengthLong(body.size());
+        if (body.chunks() <= 1 || !req.isAsyncSupported()) {
+            try {
+                body.writeTo(resp.getOutputStream());
+            } finally {
+                body.release();
+            }
+            return false;
+        }
+        // a resumed response reuses the suspend context, whose timeout must not cut the drain short
+        AsyncContext async = req.isAsyncStarted() ? req.getAsyncContext() : req.startAsync(req, resp);
+        async.setTimeout(0);
+        ServletOutputStream out = resp.getOutputStream();
+        out.setWriteListener(new Drain(out, body, async));
+        return true;
+    }
+
+    private PooledOutputStream encode(HttpServletRequest req, HttpServletResponse resp, MediaType type,
+                                      Compression compression, PooledOutputStream body) {
+        int minimumSize = type == null ? -1 : compression.minimumSize(type.getType(), type.getSubtype());
+        if (minimumSize < 0 || resp.containsHeader(HttpHeaders.CONTENT_ENCODING)) return body;
+        vary(resp);
+        String encoding = body.size() < minimumSize ? null : Compression.negotiate(req.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) return body;
+        PooledOutputStream compressed = Compression.compress(body, encoding.equals(Compression.Gzip), compression.getLevel(),
+                deflaters, buffers);
+        if (compressed.size() >= body.size()) {
+            compressed.release();
+            return body;
+        }
+        body.release();
+        resp.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        resp.setContentLengthLong(compressed.size());
+        return compressed;
+    }
+
+    private static void vary(HttpServletResponse resp) {
+        Collection<String> vary = resp.getHeaders(HttpHeaders.VARY);
+        if (vary == null || vary.isEmpty()) resp.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        else if (!Compression.varies(vary)) resp.setHeader(HttpHeaders.VARY, String.join(", ", vary) + ", " + HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    DeflaterPool getDeflaterPool() {
+        return deflaters;
+    }
+
+    MappedFiles getMappedFiles() {
+        return mappedFiles;
+    }
+
+    BufferPool getBufferPool() {
+        return buffers;
+    }
+
+    private static class Drain implements WriteListener {
+        private final ServletOutputStream out;
+        private final PooledOutputStream body;
+        private final AsyncContext async;
+        private int next;
+
+        Drain(ServletOutputStream out, PooledOutputStream body, AsyncContext async) {
+            this.out = out;
+            this.body = body;
+            this.async = async;
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            while (out.isReady()) {
+                if (next > 0) body.release(next - 1);
+                if (next == body.chunks()) {
+                    async.complete();
+                    return;
+                }
+                out.write(body.chunk(next), 0, body.length(next));
+                next++;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.release();
+            async.complete();
+        }
+    }
+
+    private MessageBodyWriter writer(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        WriterKey key = new WriterKey(type, genericType, annotations, mediaType);
+        Optional<MessageBodyWriter> writer = writers.get(key);
+        if (writer == null) {
+            writer = Optional.ofNullable(providers.getMessageBodyWriter(type, genericType, annotations, mediaType));
+            writers.put(key, writer);
+        }
+        return writer.orElse(null);
+    }
+
+    ClockCache<WriterKey, Optional<MessageBodyWriter>> getWriterCache() {
+        return writers;
+    }
+
+    // annotation hashCode() walks members reflectively, so the hash only mixes identity-hashed classes
+    static final class WriterKey {
+        private final Class<?> type;
+        private final Type genericType;
+        private final Annotation[] annotations;
+        private final MediaType mediaType;
+        private final int hash;
+
+        WriterKey(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+            this.type = type;
+            this.genericType = genericType;
+            this.annotations = annotations;
+            this.mediaType = mediaType;
+            int hash = type.hashCode() * 31 + Objects.hashCode(mediaType);
+            for (Annotation annotation : annotations) hash = hash * 31 + annotation.annotationType().hashCode();
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof WriterKey key && hash == key.hash && type == key.type && genericType.equals(key.genericType)
+                    && (annotations == key.annotations || Arrays.equals(annotations, key.annotations))
+                    && Objects.equals(mediaType, key.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
         }
     }
 
     private void setHeaders(HttpServletResponse resp, MultivaluedMap<String, Object> headers) {
         for (String name : headers.keySet()) {
             for (Object value : headers.get(name)) {
-                RuntimeDelegate.HeaderDelegate headerDelegate = RuntimeDelegate.getInstance().createHeaderDelegate(value.getClass());
+                if (value instanceof EncodedHeader encoded) {
+                    resp.addHeader(name, encoded.getValue());
+                    continue;
+                }
+                RuntimeDelegate.HeaderDelegate headerDelegate = headerDelegates.computeIfAbsent(value.getClass(),
+                        type -> Optional.ofNullable(RuntimeDelegate.getInstance().createHeaderDelegate(type))).orElse(null);
                 resp.addHeader(name, headerDelegate.toString(value));
             }
         }
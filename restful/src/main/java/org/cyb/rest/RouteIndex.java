@@ -0,0 +1,78 @@
+package org.cyb.rest;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+class RouteIndex<Route> {
+    private static final Pattern Literal = Pattern.compile("[\\w\\-~%@!&',;=:]+");
+    private static final Pattern Variable = Pattern.compile("\\{\\w[\\w\\.-]*}");
+
+    private final List<Route> routes;
+    private final Node root = new Node();
+
+    RouteIndex(List<Route> routes, Function<Route, UriTemplate> template) {
+        this.routes = routes;
+        for (int i = 0; i < routes.size(); i++) {
+            UriTemplate uriTemplate = template.apply(routes.get(i));
+            Node node = uriTemplate instanceof PathTemplate path ? insert(path.getTemplate()) : root;
+            node.routes.add(i);
+        }
+    }
+
+    List<Route> candidates(String path) {
+        BitSet matched = new BitSet(routes.size());
+        collect(root, path, 0, matched);
+        List<Route> candidates = new ArrayList<>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) candidates.add(routes.get(i));
+        return candidates;
+    }
+
+    private Node insert(String template) {
+        Node node = root;
+        if (!template.startsWith("/")) return node;
+        int from = 0;
+        while (from < template.length()) {
+            int end = template.indexOf('/', from + 1);
+            if (end < 0) end = template.length();
+            String segment = template.substring(from + 1, end);
+            if (Variable.matcher(segment).matches())
+                node = node.wildcard();
+            else if (Literal.matcher(segment).matches())
+                node = node.literal(segment);
+            else
+                return node;
+            from = end;
+        }
+        return node;
+    }
+
+    private void collect(Node node, String path, int from, BitSet matched) {
+        for (int route : node.routes) matched.set(route);
+        if (from >= path.length() || path.charAt(from) != '/') return;
+        int end = path.indexOf('/', from + 1);
+        if (end < 0) end = path.length();
+        if (end == from + 1) return;
+        if (node.literals != null) {
+            Node literal = node.literals.get(path.substring(from + 1, end));
+            if (literal != null) collect(literal, path, end, matched);
+        }
+        if (node.wildcard != null) collect(node.wildcard, path, end, matched);
+    }
+
+    private static class Node {
+        private final List<Integer> routes = new ArrayList<>();
+        private Map<String, Node> literals;
+        private Node wildcard;
+
+        Node literal(String segment) {
+            if (literals == null) literals = new HashMap<>();
+            return literals.computeIfAbsent(segment, s -> new Node());
+        }
+
+        Node wildcard() {
+            if (wildcard == null) wildcard = new Node();
+            return wildcard;
+        }
+    }
+}
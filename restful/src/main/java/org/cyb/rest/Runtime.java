@@ -6,6 +6,9 @@ import jakarta.ws.rs.container.ResourceContext;
 import jakarta.ws.rs.ext.Providers;
 import org.cyb.di.Context;
 
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
 public interface Runtime {
     Providers getProviders();
 
@@ -16,4 +19,12 @@ public interface Runtime {
     ResourceRouter getResourceRouter();
 
     UriInfoBuilder createUriInfoBuilder(HttpServletRequest request);
+
+    default Optional<Executor> getDispatchExecutor() {
+        return Optional.empty();
+    }
+
+    default Optional<Compression> getCompression() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,149 @@
+package org.cyb.rest;
+
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.CompletionCallback;
+import jakarta.ws.rs.container.TimeoutHandler;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+class SuspendedResponse extends CompletableFuture<Object> implements AsyncResponse {
+    static final long Unset = -1;
+
+    private volatile long timeout = Unset;
+    private volatile TimeoutHandler timeoutHandler;
+    private final AtomicReference<Response> cancellation = new AtomicReference<>();
+    private volatile long defaultTimeout;
+    private volatile Runnable expired;
+    private final AtomicInteger timer = new AtomicInteger();
+
+    // the timer lives here rather than on the AsyncContext: a container errors the request once its own
+    // timeout fires, so only a timer we own can be extended by a TimeoutHandler or a later setTimeout
+    void suspend(long defaultTimeout, Runnable expired) {
+        this.defaultTimeout = defaultTimeout;
+        this.expired = expired;
+        schedule();
+    }
+
+    // true if the handler extended the timeout instead of resuming or cancelling
+    boolean timeout() {
+        TimeoutHandler handler = timeoutHandler;
+        if (handler == null) return false;
+        int armed = timer.get();
+        handler.handleTimeout(this);
+        return timer.get() != armed && !isDone();
+    }
+
+    private void schedule() {
+        Runnable action = expired;
+        if (action == null) return;
+        long millis = timeout == Unset ? defaultTimeout : timeout;
+        int armed = timer.incrementAndGet();
+        if (millis <= 0) return;
+        CompletableFuture.delayedExecutor(millis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (timer.get() == armed && !isDone()) action.run();
+        });
+    }
+
+    @Override
+    public boolean resume(Object response) {
+        return complete(response);
+    }
+
+    @Override
+    public boolean resume(Throwable response) {
+        return completeExceptionally(response);
+    }
+
+    @Override
+    public boolean cancel() {
+        return cancel(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+    }
+
+    @Override
+    public boolean cancel(int retryAfter) {
+        return cancel(Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, retryAfter).build());
+    }
+
+    @Override
+    public boolean cancel(Date retryAfter) {
+        return cancel(Response.status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, retryAfter).build());
+    }
+
+    // the cancellation is published before completing, so whoever observes the completion also sees it cancelled
+    private boolean cancel(Response response) {
+        if (isDone()) return isCancelled();
+        cancellation.compareAndSet(null, response);
+        complete(cancellation.get());
+        return isCancelled();
+    }
+
+    @Override
+    public boolean isSuspended() {
+        return !isDone();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        Response response = cancellation.get();
+        return response != null && isDone() && !isCompletedExceptionally() && getNow(null) == response || super.isCancelled();
+    }
+
+    @Override
+    public boolean setTimeout(long time, TimeUnit unit) {
+        if (isDone()) return false;
+        timeout = unit.toMillis(time);
+        schedule();
+        return true;
+    }
+
+    @Override
+    public void setTimeoutHandler(TimeoutHandler handler) {
+        timeoutHandler = handler;
+    }
+
+    @Override
+    public Collection<Class<?>> register(Class<?> callback) {
+        try {
+            return register(callback.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("can not instantiate callback: " + callback, e);
+        }
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+        Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+        registered.put(callback, register(callback));
+        for (Class<?> other : callbacks) registered.put(other, register(other));
+        return registered;
+    }
+
+    @Override
+    public Collection<Class<?>> register(Object callback) {
+        List<Class<?>> registered = new ArrayList<>();
+        if (callback instanceof CompletionCallback completion) {
+            whenComplete((value, error) -> completion.onComplete(error));
+            registered.add(CompletionCallback.class);
+        }
+        return registered;
+    }
+
+    @Override
+    public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+        Map<Class<?>, Collection<Class<?>>> registered = new HashMap<>();
+        registered.put(callback.getClass(), register(callback));
+        for (Object other : callbacks) registered.put(other.getClass(), register(other));
+        return registered;
+    }
+}
@@ -0,0 +1,204 @@
+package org.cyb.rest;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+class TemplateAutomaton<Route> {
+    private static final Pattern Literal = Pattern.compile("[\\w\\-~%@!&',;=:]+");
+    private static final Pattern Variable = Pattern.compile("\\{(\\w[\\w\\.-]*)}");
+
+    private final List<Route> routes;
+    private final List<UriTemplate> templates = new ArrayList<>();
+    private final String[][] variables;
+    private final boolean[][] wildcards;
+    private final int[] fallback;
+    private final State start;
+
+    TemplateAutomaton(List<Route> routes, Function<Route, UriTemplate> template) {
+        this.routes = routes;
+        this.variables = new String[routes.size()][];
+        this.wildcards = new boolean[routes.size()][];
+        Node root = new Node();
+        List<Integer> fallback = new ArrayList<>();
+        for (int i = 0; i < routes.size(); i++) {
+            UriTemplate uriTemplate = template.apply(routes.get(i));
+            templates.add(uriTemplate);
+            if (!(uriTemplate instanceof PathTemplate path && insert(root, i, path.getTemplate()))) fallback.add(i);
+        }
+        this.fallback = fallback.stream().mapToInt(Integer::intValue).toArray();
+        this.start = new Determinizer().state(Set.of(root));
+    }
+
+    Optional<Match<Route>> match(String path) {
+        Match<Route> best = walk(path);
+        for (int id : fallback) {
+            Optional<UriTemplate.MatchResult> result = templates.get(id).match(path);
+            if (result.isEmpty()) continue;
+            if (best != null && best.result() instanceof Captures)
+                best = new Match<>(best.template(), best.route(), templates.get(best.template()).match(path).get());
+            // equally specific templates keep registration order, as a stable sort would
+            int order = best == null ? -1 : result.get().compareTo(best.result());
+            if (order < 0 || order == 0 && id < best.template())
+                best = new Match<>(id, routes.get(id), result.get());
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private Match<Route> walk(String path) {
+        int[] bounds = new int[8];
+        int depth = 0;
+        int winner = -1, winnerDepth = 0, winnerLiterals = 0;
+        State state = start;
+        for (int from = 0; from < path.length() && path.charAt(from) == '/'; ) {
+            int end = path.indexOf('/', from + 1);
+            if (end < 0) end = path.length();
+            if (end == from + 1) break;
+            State next = state.literals.get(path.substring(from + 1, end));
+            state = next != null ? next : state.other;
+            if (state == null) break;
+            if (depth == bounds.length) bounds = Arrays.copyOf(bounds, depth * 2);
+            bounds[depth++] = end;
+            for (int id : state.accepting) {
+                int literals = literals(id, bounds, depth);
+                int order = winner < 0 ? -1 : literals != winnerLiterals ? Integer.compare(winnerLiterals, literals)
+                        : variables[id].length != variables[winner].length ? Integer.compare(variables[winner].length, variables[id].length)
+                        : Integer.compare(id, winner);
+                if (order < 0) {
+                    winner = id;
+                    winnerDepth = depth;
+                    winnerLiterals = literals;
+                }
+            }
+            from = end;
+        }
+        if (winner < 0) return null;
+        int[] captures = new int[variables[winner].length * 2];
+        for (int segment = 0, capture = 0; segment < winnerDepth; segment++) {
+            if (!wildcards[winner][segment]) continue;
+            captures[capture++] = (segment == 0 ? 0 : bounds[segment - 1]) + 1;
+            captures[capture++] = bounds[segment];
+        }
+        return new Match<>(winner, routes.get(winner),
+                new Captures(path, bounds[winnerDepth - 1], winnerLiterals, variables[winner], captures));
+    }
+
+    private int literals(int id, int[] bounds, int depth) {
+        int literals = bounds[depth - 1];
+        for (int segment = 0; segment < depth; segment++)
+            if (wildcards[id][segment]) literals -= bounds[segment] - (segment == 0 ? 0 : bounds[segment - 1]) - 1;
+        return literals;
+    }
+
+    private boolean insert(Node root, int id, String template) {
+        if (!template.startsWith("/")) return false;
+        List<String> names = new ArrayList<>();
+        List<Boolean> segments = new ArrayList<>();
+        Node node = root;
+        for (int from = 0; from < template.length(); ) {
+            int end = template.indexOf('/', from + 1);
+            if (end < 0) end = template.length();
+            String segment = template.substring(from + 1, end);
+            java.util.regex.Matcher variable = Variable.matcher(segment);
+            if (variable.matches()) {
+                names.add(variable.group(1));
+                segments.add(true);
+                node = node.wildcard == null ? node.wildcard = new Node() : node.wildcard;
+            } else if (Literal.matcher(segment).matches()) {
+                segments.add(false);
+                node = node.literals.computeIfAbsent(segment, s -> new Node());
+            } else return false;
+            from = end;
+        }
+        node.accepting.add(id);
+        variables[id] = names.toArray(String[]::new);
+        wildcards[id] = new boolean[segments.size()];
+        for (int i = 0; i < segments.size(); i++) wildcards[id][i] = segments.get(i);
+        return true;
+    }
+
+    record Match<Route>(int template, Route route, UriTemplate.MatchResult result) {
+    }
+
+    static class Captures implements UriTemplate.MatchResult {
+        private final String path;
+        private final int end;
+        private final int literals;
+        private final String[] names;
+        private final int[] offsets;
+        private Map<String, String> parameters;
+
+        Captures(String path, int end, int literals, String[] names, int[] offsets) {
+            this.path = path;
+            this.end = end;
+            this.literals = literals;
+            this.names = names;
+            this.offsets = offsets;
+        }
+
+        int[] getOffsets() {
+            return offsets;
+        }
+
+        @Override
+        public String getMatched() {
+            return path.substring(0, end);
+        }
+
+        @Override
+        public String getRemaining() {
+            return end == path.length() ? null : path.substring(end);
+        }
+
+        @Override
+        public Map<String, String> getMatchedPathParameters() {
+            if (parameters == null) {
+                parameters = new HashMap<>();
+                for (int i = 0; i < names.length; i++) parameters.put(names[i], path.substring(offsets[i * 2], offsets[i * 2 + 1]));
+            }
+            return parameters;
+        }
+
+        @Override
+        public int compareTo(UriTemplate.MatchResult o) {
+            Captures captures = (Captures) o;
+            if (literals != captures.literals) return literals > captures.literals ? -1 : 1;
+            return Integer.compare(captures.names.length, names.length);
+        }
+    }
+
+    private static class Node {
+        private final Map<String, Node> literals = new HashMap<>();
+        private final List<Integer> accepting = new ArrayList<>();
+        private Node wildcard;
+    }
+
+    private static class State {
+        private final Map<String, State> literals = new HashMap<>();
+        private State other;
+        private int[] accepting;
+    }
+
+    private static class Determinizer {
+        private final Map<Set<Node>, State> states = new HashMap<>();
+
+        State state(Set<Node> nodes) {
+            State state = states.get(nodes);
+            if (state != null) return state;
+            state = new State();
+            states.put(nodes, state);
+            state.accepting = nodes.stream().flatMap(n -> n.accepting.stream()).mapToInt(Integer::intValue).sorted().toArray();
+            Set<Node> others = new HashSet<>();
+            for (Node node : nodes) if (node.wildcard != null) others.add(node.wildcard);
+            Set<String> keys = new HashSet<>();
+            for (Node node : nodes) keys.addAll(node.literals.keySet());
+            for (String key : keys) {
+                Set<Node> next = new HashSet<>(others);
+                for (Node node : nodes) if (node.literals.containsKey(key)) next.add(node.literals.get(key));
+                state.literals.put(key, state(next));
+            }
+            if (!others.isEmpty()) state.other = state(others);
+            return state;
+        }
+    }
+}
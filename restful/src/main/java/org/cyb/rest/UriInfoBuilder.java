@@ -1,9 +1,16 @@
 package org.cyb.rest;
 
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.UriInfo;
+
 interface UriInfoBuilder {
     void pushMatchedPath(String path);
 
     void addParameter(String name, String value);
 
     String getUnmatchedPath();
+
+    UriInfo createUriInfo();
+
+    HttpHeaders createHttpHeaders();
 }
@@ -18,29 +18,123 @@ interface UriTemplate {
 
 class PathTemplate implements UriTemplate {
 
+    private final String template;
+
     private final Pattern pattern;
 
     private int variableGroupStartFrom;
 
     private PathVariables pathVariables = new PathVariables();
 
+    // literal text around each default variable, or null when the template needs the regex
+    private final String[] literals;
+
     private static String group(String pattern) {
         return "(" + pattern + ")";
     }
 
     public PathTemplate(String template) {
+        this.template = template;
         pattern = Pattern.compile(group(pathVariables.template(template)) + "(/.*)?");
         variableGroupStartFrom = 2;
+        literals = PathVariables.literals(template);
+    }
+
+    String getTemplate() {
+        return template;
     }
 
     @Override
     public Optional<MatchResult> match(String path) {
-        Matcher matcher = pattern.matcher(path);
-        if (!matcher.matches()) {
+        Captures captures = new Captures();
+        if (!match(path, captures)) {
             return Optional.empty();
         }
 
-        return Optional.of(new PathMatchResult(matcher, pathVariables));
+        return Optional.of(captures.toResult());
+    }
+
+    boolean match(String path, Captures captures) {
+        int variables = pathVariables.variables.size();
+        if (captures.variables.length < variables * 2) captures.variables = new int[variables * 2];
+        int matchedEnd;
+        if (literals != null) {
+            matchedEnd = match(path, 0, 0, captures.variables);
+            if (matchedEnd < 0) return false;
+            captures.remainingStart = matchedEnd < path.length() ? matchedEnd : -1;
+        } else {
+            Matcher matcher = pattern.matcher(path);
+            if (!matcher.matches()) return false;
+            matchedEnd = matcher.end(1);
+            captures.remainingStart = matcher.start(matcher.groupCount());
+            for (int i = 0; i < variables; i++) {
+                captures.variables[i * 2] = matcher.start(variableGroupStartFrom + i);
+                captures.variables[i * 2 + 1] = matcher.end(variableGroupStartFrom + i);
+            }
+        }
+        captures.template = this;
+        captures.path = path;
+        captures.matchedEnd = matchedEnd;
+        captures.literals = matchedEnd;
+        for (int i = 0; i < variables; i++) captures.literals -= captures.variables[i * 2 + 1] - captures.variables[i * 2];
+        return true;
+    }
+
+    // walks the same choices as the regex: each variable takes the fewest non-slash characters that let the rest match
+    private int match(String path, int variable, int from, int[] offsets) {
+        String literal = literals[variable];
+        if (!path.startsWith(literal, from)) return -1;
+        int start = from + literal.length();
+        if (variable == literals.length - 1) return remaining(path, start) ? start : -1;
+        for (int end = start + 1; end <= path.length() && path.charAt(end - 1) != '/'; end++) {
+            int matched = match(path, variable + 1, end, offsets);
+            if (matched < 0) continue;
+            offsets[variable * 2] = start;
+            offsets[variable * 2 + 1] = end;
+            return matched;
+        }
+        return -1;
+    }
+
+    // (/.*)? without DOTALL: nothing left, or a slash followed by no line terminators
+    private static boolean remaining(String path, int start) {
+        if (start == path.length()) return true;
+        if (path.charAt(start) != '/') return false;
+        for (int i = start + 1; i < path.length(); i++) {
+            switch (path.charAt(i)) {
+                case '\n', '\r', '\u0085', '\u2028', '\u2029':
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    static final class Captures implements Comparable<Captures> {
+        private PathTemplate template;
+        private String path;
+        private int matchedEnd;
+        private int remainingStart;
+        private int literals;
+        private int[] variables = new int[8];
+
+        PathTemplate getTemplate() {
+            return template;
+        }
+
+        boolean hasRemaining() {
+            return remainingStart >= 0;
+        }
+
+        @Override
+        public int compareTo(Captures o) {
+            if (literals != o.literals) return literals > o.literals ? -1 : 1;
+            return template.pathVariables.compareTo(o.template.pathVariables);
+        }
+
+        MatchResult toResult() {
+            return template.new PathMatchResult(path, matchedEnd, remainingStart, literals,
+                    Arrays.copyOf(variables, template.pathVariables.variables.size() * 2));
+        }
     }
 
     class PathVariables implements Comparable<PathVariables> {
@@ -55,6 +149,7 @@ class PathTemplate implements UriTemplate {
                 + group(":" + group(NonBrackets)) + "?"
                 + RightBracket);
         private static final int variablePatternGroup = 3;
+        private static final String RegexMetacharacters = "\\^$.|?*+()[]{}";
         private final List<String> variables = new ArrayList<>();
         private int specificPatternCount = 0;
 
@@ -78,10 +173,25 @@ class PathTemplate implements UriTemplate {
             return defaultVariablePattern;
         }
 
-        public Map<String, String> extract(Matcher matcher) {
+        private static String[] literals(String template) {
+            List<String> literals = new ArrayList<>();
+            Matcher matcher = variable.matcher(template);
+            int from = 0;
+            while (matcher.find()) {
+                if (matcher.group(variablePatternGroup) != null) return null;
+                literals.add(template.substring(from, matcher.start()));
+                from = matcher.end();
+            }
+            literals.add(template.substring(from));
+            for (String literal : literals)
+                if (literal.chars().anyMatch(c -> RegexMetacharacters.indexOf(c) >= 0)) return null;
+            return literals.toArray(String[]::new);
+        }
+
+        public Map<String, String> extract(String path, int[] offsets) {
             Map<String, String> parameters = new HashMap<>();
             for (int i = 0; i < variables.size(); i++) {
-                parameters.put(variables.get(i), matcher.group(variableGroupStartFrom + i));
+                parameters.put(variables.get(i), path.substring(offsets[i * 2], offsets[i * 2 + 1]));
             }
             return parameters;
         }
@@ -95,33 +205,35 @@ class PathTemplate implements UriTemplate {
     }
 
     class PathMatchResult implements MatchResult {
-        private int matchLiteralCount;
-        private final Matcher matcher;
+        private final String path;
+        private final int matchedEnd;
+        private final int remainingStart;
+        private final int matchLiteralCount;
+        private final int[] offsets;
         private Map<String, String> parameters;
-        private PathVariables variables;
-
-        public PathMatchResult(Matcher matcher, PathVariables pathVariables) {
-            this.matcher = matcher;
-            this.variables = pathVariables;
-            this.parameters = pathVariables.extract(matcher);
-            this.matchLiteralCount = matcher.group(1).length();
-            for (int i = 0; i < pathVariables.variables.size(); i++) {
-                matchLiteralCount -= matcher.group(variableGroupStartFrom + i).length();
-            }
+        private PathVariables variables = pathVariables;
+
+        PathMatchResult(String path, int matchedEnd, int remainingStart, int matchLiteralCount, int[] offsets) {
+            this.path = path;
+            this.matchedEnd = matchedEnd;
+            this.remainingStart = remainingStart;
+            this.matchLiteralCount = matchLiteralCount;
+            this.offsets = offsets;
         }
 
         @Override
         public String getMatched() {
-            return matcher.group(1);
+            return path.substring(0, matchedEnd);
         }
 
         @Override
         public String getRemaining() {
-            return matcher.group(matcher.groupCount());
+            return remainingStart < 0 ? null : path.substring(remainingStart);
         }
 
         @Override
         public Map<String, String> getMatchedPathParameters() {
+            if (parameters == null) parameters = variables.extract(path, offsets);
             return parameters;
         }
 
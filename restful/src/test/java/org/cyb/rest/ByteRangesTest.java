@@ -0,0 +1,53 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteRangesTest {
+    @Test
+    public void should_parse_closed_open_and_suffix_ranges() {
+        ByteRanges ranges = ByteRanges.parse("bytes=0-9, 20-, -5", 100).get();
+
+        assertEquals(List.of(new ByteRanges.ByteRange(0, 9), new ByteRanges.ByteRange(20, 99), new ByteRanges.ByteRange(95, 99)),
+                ranges.ranges());
+    }
+
+    @Test
+    public void should_clip_range_to_entity_length() {
+        assertEquals(List.of(new ByteRanges.ByteRange(90, 99)), ByteRanges.parse("bytes=90-200", 100).get().ranges());
+        assertEquals(List.of(new ByteRanges.ByteRange(0, 99)), ByteRanges.parse("bytes=-500", 100).get().ranges());
+    }
+
+    @Test
+    public void should_not_be_satisfiable_if_all_ranges_start_after_entity() {
+        assertFalse(ByteRanges.parse("bytes=100-", 100).get().isSatisfiable());
+    }
+
+    @Test
+    public void should_ignore_malformed_or_excessive_ranges() {
+        assertEquals(Optional.empty(), ByteRanges.parse("items=0-1", 100));
+        assertEquals(Optional.empty(), ByteRanges.parse("bytes=5-1", 100));
+        assertEquals(Optional.empty(), ByteRanges.parse("bytes=a-b", 100));
+        assertEquals(Optional.empty(), ByteRanges.parse("bytes=" + "0-1,".repeat(ByteRanges.MaxRanges + 1), 100));
+        assertEquals(Optional.empty(), ByteRanges.parse(null, 100));
+    }
+
+    @Test
+    public void should_match_if_range_by_strong_entity_tag_or_last_modified() {
+        long lastModified = 784111777000L;
+
+        assertTrue(ByteRanges.ifRange(null, null, lastModified));
+        assertTrue(ByteRanges.ifRange("\"v1\"", "\"v1\"", lastModified));
+        assertFalse(ByteRanges.ifRange("\"v1\"", "\"v2\"", lastModified));
+        assertFalse(ByteRanges.ifRange("W/\"v1\"", "W/\"v1\"", lastModified));
+        assertTrue(ByteRanges.ifRange("Sun, 06 Nov 1994 08:49:37 GMT", null, lastModified + 500));
+        assertFalse(ByteRanges.ifRange("Sun, 06 Nov 1994 08:49:38 GMT", null, lastModified));
+        assertFalse(ByteRanges.ifRange("yesterday", null, lastModified));
+    }
+}
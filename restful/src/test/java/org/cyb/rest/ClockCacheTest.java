@@ -0,0 +1,47 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClockCacheTest {
+
+    @Test
+    public void should_count_hits_and_misses() {
+        ClockCache<String, String> cache = new ClockCache<>(2);
+        cache.put("/users", "users");
+
+        assertEquals("users", cache.get("/users"));
+        assertNull(cache.get("/orders"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void should_evict_entry_not_referenced_since_last_sweep() {
+        ClockCache<String, String> cache = new ClockCache<>(2);
+        cache.put("/users", "users");
+        cache.put("/orders", "orders");
+        cache.get("/users");
+        cache.put("/messages", "messages");
+        cache.get("/users");
+        cache.put("/items", "items");
+
+        assertEquals("users", cache.get("/users"));
+        assertEquals("items", cache.get("/items"));
+        assertNull(cache.get("/orders"));
+        assertNull(cache.get("/messages"));
+        assertEquals(2, cache.getEvictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void should_drop_all_entries_when_cleared() {
+        ClockCache<String, String> cache = new ClockCache<>(2);
+        cache.put("/users", "users");
+        cache.clear();
+
+        assertNull(cache.get("/users"));
+        assertEquals(0, cache.size());
+    }
+}
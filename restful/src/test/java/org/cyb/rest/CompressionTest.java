@@ -0,0 +1,57 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionTest {
+    @Test
+    public void should_prefer_gzip_unless_deflate_has_higher_quality() {
+        assertEquals("gzip", Compression.negotiate("gzip, deflate"));
+        assertEquals("gzip", Compression.negotiate("x-gzip"));
+        assertEquals("deflate", Compression.negotiate("gzip;q=0.5, deflate"));
+        assertEquals("gzip", Compression.negotiate("br, *"));
+        assertEquals("deflate", Compression.negotiate("gzip;q=0, *;q=0.3"));
+    }
+
+    @Test
+    public void should_not_negotiate_encoding_if_none_acceptable() {
+        assertNull(Compression.negotiate(null));
+        assertNull(Compression.negotiate("br, identity"));
+        assertNull(Compression.negotiate("gzip;q=0, deflate;q=0"));
+        assertNull(Compression.negotiate("*;q=0"));
+    }
+
+    @Test
+    public void should_use_minimum_size_of_most_specific_rule() {
+        Compression compression = Compression.of(6, Map.of("text/*", 1024, "text/csv", 64, "application/*+json", 256));
+
+        assertEquals(64, compression.minimumSize("text", "csv"));
+        assertEquals(1024, compression.minimumSize("text", "plain"));
+        assertEquals(256, compression.minimumSize("application", "problem+json"));
+        assertEquals(-1, compression.minimumSize("application", "json"));
+    }
+
+    @Test
+    public void should_not_compress_already_compressed_media_types_by_default() {
+        Compression compression = Compression.defaults();
+
+        assertEquals(Compression.DefaultMinimumSize, compression.minimumSize("application", "json"));
+        assertEquals(Compression.DefaultMinimumSize, compression.minimumSize("TEXT", "HTML"));
+        assertEquals(-1, compression.minimumSize("image", "png"));
+        assertEquals(-1, compression.minimumSize("application", "zip"));
+    }
+
+    @Test
+    public void should_find_accept_encoding_or_wildcard_among_vary_fields() {
+        assertTrue(Compression.varies(List.of("Accept-Language, accept-encoding")));
+        assertTrue(Compression.varies(List.of("Accept-Language", "*")));
+        assertFalse(Compression.varies(List.of("Accept-Language", "X-Accept-Encoding")));
+    }
+}
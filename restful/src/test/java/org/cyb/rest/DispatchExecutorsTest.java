@@ -0,0 +1,18 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DispatchExecutorsTest {
+    @Test
+    public void should_provide_virtual_thread_executor_only_if_supported_by_jvm() {
+        Optional<ExecutorService> executor = DispatchExecutors.virtualThreads();
+
+        assertEquals(java.lang.Runtime.version().feature() >= 21, executor.isPresent());
+        executor.ifPresent(ExecutorService::shutdown);
+    }
+}
@@ -0,0 +1,62 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileRegionTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void should_transfer_whole_file_to_channel() throws Exception {
+        Path file = Files.writeString(directory.resolve("report.txt"), "report");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (FileRegion region = FileRegion.of(file)) {
+            region.transferTo(Channels.newChannel(out));
+            assertEquals(6, region.getCount());
+        }
+
+        assertEquals("report", out.toString());
+    }
+
+    @Test
+    public void should_transfer_only_region_of_file() throws Exception {
+        Path file = Files.writeString(directory.resolve("report.txt"), "0123456789");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (FileRegion region = FileRegion.of(FileChannel.open(file, StandardOpenOption.READ), 2, 5)) {
+            region.transferTo(Channels.newChannel(out));
+        }
+
+        assertEquals("23456", out.toString());
+    }
+
+    @Test
+    public void should_close_channel_with_region() throws Exception {
+        FileRegion region = FileRegion.of(Files.writeString(directory.resolve("report.txt"), "report"));
+
+        region.close();
+
+        assertFalse(region.getChannel().isOpen());
+    }
+
+    @Test
+    public void should_not_accept_negative_region() throws Exception {
+        FileChannel channel = FileChannel.open(Files.writeString(directory.resolve("report.txt"), "report"), StandardOpenOption.READ);
+        try (channel) {
+            assertThrows(IllegalArgumentException.class, () -> FileRegion.of(channel, -1, 2));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFilesTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void should_share_mapping_of_unchanged_file() throws Exception {
+        MappedFiles files = new MappedFiles(4, 1024);
+        Path file = Files.writeString(directory.resolve("report.txt"), "0123456789");
+
+        try (MappedFiles.Mapping first = files.acquire(file, 10, 1);
+             MappedFiles.Mapping second = files.acquire(file, 10, 1)) {
+            assertSame(first, second);
+            assertEquals("2345", text(first.slice(2, 4)));
+        }
+    }
+
+    @Test
+    public void should_remap_file_if_modified() throws Exception {
+        MappedFiles files = new MappedFiles(4, 1024);
+        Path file = Files.writeString(directory.resolve("report.txt"), "0123456789");
+
+        MappedFiles.Mapping first = files.acquire(file, 10, 1);
+        first.close();
+        Files.writeString(file, "abcdefghij");
+        try (MappedFiles.Mapping second = files.acquire(file, 10, 2)) {
+            assertTrue(first.isRetired());
+            assertEquals("abcd", text(second.slice(0, 4)));
+        }
+        assertEquals(1, files.size());
+    }
+
+    @Test
+    public void should_evict_least_recently_used_mapping_beyond_capacity() throws Exception {
+        MappedFiles files = new MappedFiles(2, 1024);
+        Path a = Files.writeString(directory.resolve("a.txt"), "a"), b = Files.writeString(directory.resolve("b.txt"), "b"),
+                c = Files.writeString(directory.resolve("c.txt"), "c");
+
+        MappedFiles.Mapping first = files.acquire(a, 1, 1);
+        files.acquire(b, 1, 1).close();
+        files.acquire(c, 1, 1).close();
+
+        assertTrue(first.isRetired());
+        assertEquals("a", text(first.slice(0, 1)));
+        first.close();
+        assertEquals(2, files.size());
+    }
+
+    @Test
+    public void should_not_cache_mapping_larger_than_byte_limit() throws Exception {
+        MappedFiles files = new MappedFiles(4, 4);
+        Path file = Files.writeString(directory.resolve("report.txt"), "0123456789");
+
+        try (MappedFiles.Mapping mapping = files.acquire(file, 10, 1)) {
+            assertTrue(mapping.isRetired());
+            assertEquals("0123456789", text(mapping.slice(0, 10)));
+        }
+        assertEquals(0, files.size());
+    }
+
+    @Test
+    public void should_retire_all_mappings_when_cleared() throws Exception {
+        MappedFiles files = new MappedFiles(4, 1024);
+        MappedFiles.Mapping mapping = files.acquire(Files.writeString(directory.resolve("report.txt"), "report"), 6, 1);
+        mapping.close();
+
+        files.clear();
+
+        assertTrue(mapping.isRetired());
+        assertEquals(0, files.size());
+    }
+
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.US_ASCII.decode(buffer).toString();
+    }
+}
@@ -0,0 +1,206 @@
+package org.cyb.rest;
+
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.container.ResourceContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.RuntimeDelegate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ParameterBindingTest {
+    private ResourceContext context;
+    private UriInfoBuilder builder;
+    private MultivaluedHashMap<String, String> pathParameters = new MultivaluedHashMap<>();
+    private MultivaluedHashMap<String, String> queryParameters = new MultivaluedHashMap<>();
+    private HttpHeaders headers;
+    private RuntimeDelegate previous;
+
+    @BeforeEach
+    public void before() {
+        try {
+            previous = RuntimeDelegate.getInstance();
+        } catch (RuntimeException e) {
+            previous = null;
+        }
+        context = mock(ResourceContext.class);
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getPathParameters()).thenReturn(pathParameters);
+        when(uriInfo.getQueryParameters()).thenReturn(queryParameters);
+        headers = mock(HttpHeaders.class);
+        builder = mock(UriInfoBuilder.class);
+        when(builder.createUriInfo()).thenReturn(uriInfo);
+        when(builder.createHttpHeaders()).thenReturn(headers);
+    }
+
+    @AfterEach
+    public void after() {
+        RuntimeDelegate.setInstance(previous);
+    }
+
+    public enum Color {
+        RED, GREEN;
+
+        public static Color fromString(String value) {
+            return valueOf(value.toUpperCase());
+        }
+    }
+
+    public record Name(String value) {
+        public static Name valueOf(String value) {
+            return new Name(value);
+        }
+    }
+
+    static class Resource {
+        public String primitives(@PathParam("id") int id, @QueryParam("limit") long limit,
+                                 @QueryParam("active") boolean active, @HeaderParam("X-Scale") double scale) {
+            return id + "/" + limit + "/" + active + "/" + scale;
+        }
+
+        public String wrappers(@PathParam("id") Integer id, @QueryParam("limit") Long limit, @QueryParam("active") Boolean active) {
+            return id + "/" + limit + "/" + active;
+        }
+
+        public String factories(@QueryParam("color") Color color, @QueryParam("name") Name name,
+                                @QueryParam("text") StringBuilder text) {
+            return color + "/" + name.value() + "/" + text;
+        }
+
+        public String defaults(@QueryParam("limit") @DefaultValue("10") int limit, @QueryParam("name") String name) {
+            return limit + "/" + name;
+        }
+
+        public void nothing() {
+        }
+
+        public String unsupported(@QueryParam("values") List<String> values) {
+            return null;
+        }
+
+        public String entity(String body) {
+            return body;
+        }
+
+        public String failing() throws IOException {
+            throw new IOException("disk failure");
+        }
+    }
+
+    @Test
+    public void should_parse_primitive_parameters_from_each_source() {
+        pathParameters.putSingle("id", "1");
+        queryParameters.putSingle("limit", "20");
+        queryParameters.putSingle("active", "true");
+        when(headers.getRequestHeader("X-Scale")).thenReturn(List.of("1.5"));
+
+        assertEquals("1/20/true/1.5", invoke("primitives", int.class, long.class, boolean.class, double.class));
+    }
+
+    @Test
+    public void should_use_zero_for_missing_primitives_and_null_for_missing_wrappers() {
+        assertEquals("0/0/false/0.0", invoke("primitives", int.class, long.class, boolean.class, double.class));
+        assertEquals("null/null/null", invoke("wrappers", Integer.class, Long.class, Boolean.class));
+    }
+
+    @Test
+    public void should_convert_with_from_string_value_of_or_string_constructor() {
+        queryParameters.putSingle("color", "green");
+        queryParameters.putSingle("name", "john");
+        queryParameters.putSingle("text", "hello");
+
+        assertEquals("GREEN/john/hello", invoke("factories", Color.class, Name.class, StringBuilder.class));
+    }
+
+    @Test
+    public void should_use_default_value_if_parameter_missing() {
+        assertEquals("10/null", invoke("defaults", int.class, String.class));
+    }
+
+    @Test
+    public void should_return_null_for_void_method() {
+        assertNull(invoke("nothing"));
+    }
+
+    @Test
+    public void should_fail_request_if_parameter_has_no_converter() {
+        status(500);
+        ParameterBinding binding = binding("unsupported", List.class);
+
+        assertThrows(InternalServerErrorException.class, () -> binding.invoke(new Resource(), context, builder));
+    }
+
+    @Test
+    public void should_fail_request_with_415_if_entity_parameter_can_not_be_read() {
+        status(415);
+        ParameterBinding binding = binding("entity", String.class);
+
+        assertThrows(NotSupportedException.class, () -> binding.invoke(new Resource(), context, builder));
+    }
+
+    @Test
+    public void should_map_path_and_query_conversion_failure_to_404() {
+        status(404);
+        pathParameters.putSingle("id", "one");
+
+        WebApplicationException exception = assertThrows(NotFoundException.class,
+                () -> invoke("primitives", int.class, long.class, boolean.class, double.class));
+        assertInstanceOf(NumberFormatException.class, exception.getCause());
+    }
+
+    @Test
+    public void should_map_header_conversion_failure_to_400() {
+        status(400);
+        when(headers.getRequestHeader("X-Scale")).thenReturn(List.of("large"));
+
+        assertThrows(BadRequestException.class, () -> invoke("primitives", int.class, long.class, boolean.class, double.class));
+    }
+
+    @Test
+    public void should_rethrow_checked_exception_from_resource_method_unwrapped() {
+        IOException exception = assertThrows(IOException.class, () -> invoke("failing"));
+
+        assertEquals("disk failure", exception.getMessage());
+    }
+
+    @Test
+    public void should_not_create_uri_info_or_headers_if_not_required() {
+        invoke("nothing");
+
+        verify(builder, never()).createUriInfo();
+        verify(builder, never()).createHttpHeaders();
+    }
+
+    private Object invoke(String name, Class<?>... types) {
+        return binding(name, types).invoke(new Resource(), context, builder);
+    }
+
+    private static ParameterBinding binding(String name, Class<?>... types) {
+        try {
+            return new ParameterBinding(Resource.class.getMethod(name, types));
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void status(int status) {
+        RuntimeDelegate delegate = mock(RuntimeDelegate.class);
+        Response.ResponseBuilder responseBuilder = mock(Response.ResponseBuilder.class, RETURNS_SELF);
+        Response response = mock(Response.class);
+        when(response.getStatus()).thenReturn(status);
+        when(response.getStatusInfo()).thenReturn(Response.Status.fromStatusCode(status));
+        when(responseBuilder.build()).thenReturn(response);
+        when(delegate.createResponseBuilder()).thenReturn(responseBuilder);
+        RuntimeDelegate.setInstance(delegate);
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class PathTemplateTest {
@@ -66,4 +68,69 @@ public class PathTemplateTest {
         assertTrue(lhs.compareTo(rhs) < 0);
         assertTrue(rhs.compareTo(lhs) > 0);
     }
+
+    @ParameterizedTest
+    @CsvSource({"/users/1234567890/order,/{resources}/1234567890/{action},/users/{id}/order","/users/1,/users/{id:[0-9]+},/users/{id}", "/users/1234,/users/1234,/users/{id}"})
+    public void first_captures_should_be_smaller_than_second(String path, String smallerUri, String largerUri) {
+        PathTemplate.Captures lhs = new PathTemplate.Captures();
+        PathTemplate.Captures rhs = new PathTemplate.Captures();
+
+        assertTrue(new PathTemplate(smallerUri).match(path, lhs));
+        assertTrue(new PathTemplate(largerUri).match(path, rhs));
+        assertTrue(lhs.compareTo(rhs) < 0);
+        assertTrue(rhs.compareTo(lhs) > 0);
+    }
+
+    @Test
+    public void should_extract_variables_from_captures_only_when_read() {
+        PathTemplate.Captures captures = new PathTemplate.Captures();
+        new PathTemplate("/users/{id}/orders/{order}").match("/users/1/orders/2/items", captures);
+        UriTemplate.MatchResult result = captures.toResult();
+
+        assertEquals("/users/1/orders/2", result.getMatched());
+        assertEquals("/items", result.getRemaining());
+        assertEquals(Map.of("id", "1", "order", "2"), result.getMatchedPathParameters());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "/users/{id}|/users/{id:[^/]+?}|/users/1/orders",
+            "/users/{id}/orders|/users/{id:[^/]+?}/orders|/users/1/orders/2",
+            "/{a}-{b}|/{a:[^/]+?}-{b:[^/]+?}|/x-y-z/w",
+            "/{a}{b}|/{a:[^/]+?}{b:[^/]+?}|/abc",
+            "/users/{id}|/users/{id:[^/]+?}|/users/1/a\u0085b",
+            "/users/{id}|/users/{id:[^/]+?}|/users",
+            "/users|/users|/usersx"})
+    public void should_match_default_variables_without_regex_as_regex_does(String template, String regex, String path) {
+        PathTemplate.Captures expected = new PathTemplate.Captures();
+        PathTemplate.Captures actual = new PathTemplate.Captures();
+
+        boolean matched = new PathTemplate(regex).match(path, expected);
+        assertEquals(matched, new PathTemplate(template).match(path, actual));
+        if (!matched) return;
+        UriTemplate.MatchResult lhs = expected.toResult(), rhs = actual.toResult();
+        assertEquals(lhs.getMatched(), rhs.getMatched());
+        assertEquals(lhs.getRemaining(), rhs.getRemaining());
+        assertEquals(lhs.getMatchedPathParameters(), rhs.getMatchedPathParameters());
+    }
+
+    @Test
+    public void should_not_allocate_when_matching_into_captures() {
+        PathTemplate template = new PathTemplate("/users/{id}/orders");
+        PathTemplate.Captures captures = new PathTemplate.Captures();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 100_000; i++) {
+            template.match("/users/1/orders", captures);
+            template.match("/orders/1", captures);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            template.match("/users/1/orders", captures);
+            template.match("/orders/1", captures);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(allocated / 100_000 < 8, allocated / 100_000 + " bytes per match");
+    }
 }
@@ -0,0 +1,51 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PooledOutputStreamTest {
+    @Test
+    public void should_split_content_into_pooled_chunks() throws Exception {
+        PooledOutputStream body = new PooledOutputStream(new BufferPool(4, 8));
+        body.write("hello".getBytes());
+        body.write('!');
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+
+        assertEquals(6, body.size());
+        assertEquals(2, body.chunks());
+        assertEquals(2, body.length(1));
+        assertArrayEquals("hello!".getBytes(), out.toByteArray());
+    }
+
+    @Test
+    public void should_reuse_released_chunks() {
+        BufferPool pool = new BufferPool(4, 8);
+        PooledOutputStream body = new PooledOutputStream(pool);
+        body.write("hello".getBytes(), 0, 5);
+        byte[] first = body.chunk(0);
+
+        body.release();
+
+        assertEquals(2, pool.available());
+        byte[] reused = pool.acquire();
+        assertTrue(reused == first || pool.acquire() == first);
+    }
+
+    @Test
+    public void should_not_retain_more_chunks_than_capacity() {
+        BufferPool pool = new BufferPool(4, 1);
+        PooledOutputStream body = new PooledOutputStream(pool);
+        body.write(new byte[12], 0, 12);
+
+        body.release();
+
+        assertEquals(1, pool.available());
+    }
+}
@@ -15,6 +15,8 @@ import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ResourceDispatcherTest {
@@ -214,6 +216,46 @@ public class ResourceDispatcherTest {
 //        assertEquals(200, response.getStatus());
     }
 
+    @Test
+    public void should_use_matched_root_resource_with_combined_matcher() {
+        GenericEntity entity = new GenericEntity("matched", String.class);
+
+        DefaultResourceRouter router = new DefaultResourceRouter(runtime, List.of(
+                rootResource(unmatched("/users/1")),
+                rootResource(matched("/users/1", result("/1")), returns(entity))), true);
+        OutboundResponse response = router.dispatch(request, context);
+        assertSame(entity, response.getEntity());
+    }
+
+    @Test
+    public void should_reuse_resolved_route_for_same_path_method_and_accept() {
+        when(request.getHeaders(eq(HttpHeaders.ACCEPT))).thenAnswer(i -> new Vector<>(List.of(MediaType.WILDCARD)).elements());
+        GenericEntity entity = new GenericEntity("matched", String.class);
+        ResourceRouter.RootResource resource = rootResource(matched("/users/1", result("/1")), returns(entity));
+        DefaultResourceRouter router = new DefaultResourceRouter(runtime, List.of(resource));
+
+        router.dispatch(request, context);
+        OutboundResponse response = router.dispatch(request, context);
+
+        assertSame(entity, response.getEntity());
+        verify(resource, times(1)).matches(any(), any(), any(), any());
+        assertEquals(1, router.getRouteCache().getHits());
+        assertEquals(1, router.getRouteCache().getMisses());
+    }
+
+    @Test
+    public void should_invalidate_resolved_routes_if_root_resources_changed() {
+        when(request.getHeaders(eq(HttpHeaders.ACCEPT))).thenAnswer(i -> new Vector<>(List.of(MediaType.WILDCARD)).elements());
+        GenericEntity entity = new GenericEntity("matched", String.class);
+        DefaultResourceRouter router = new DefaultResourceRouter(runtime, List.of(
+                rootResource(matched("/users/1", result("/1")), returns(entity))));
+        router.dispatch(request, context);
+
+        router.setRootResources(List.of(rootResource(unmatched("/users/1"))));
+
+        assertEquals(404, router.dispatch(request, context).getStatus());
+    }
+
     @Test
     public void should_sort_matched_root_resource_descending_order() {
         GenericEntity entity1 = new GenericEntity("1", String.class);
@@ -265,6 +307,90 @@ public class ResourceDispatcherTest {
 
     }
 
+    @Test
+    public void should_dispatch_to_resource_class_by_http_method_path_and_accept() {
+        when(context.getResource(Orders.class)).thenReturn(new Orders());
+        pathParameters();
+        DefaultResourceRouter router = new DefaultResourceRouter(runtime, List.of(new RootResourceClass(Orders.class)));
+
+        assertEquals("pending", dispatch(router, "GET", "/orders/pending", MediaType.TEXT_PLAIN).getEntity());
+        assertEquals("created", dispatch(router, "POST", "/orders/pending", MediaType.WILDCARD).getEntity());
+        assertEquals("order-42", dispatch(router, "GET", "/orders/42", MediaType.TEXT_PLAIN).getEntity());
+    }
+
+    @Test
+    public void should_replay_method_level_path_parameters_from_cached_route() {
+        when(context.getResource(Orders.class)).thenReturn(new Orders());
+        MultivaluedMap<String, String> parameters = pathParameters();
+        DefaultResourceRouter router = new DefaultResourceRouter(runtime, List.of(new RootResourceClass(Orders.class)));
+        dispatch(router, "GET", "/orders/42", MediaType.TEXT_PLAIN);
+        parameters.clear();
+
+        GenericEntity<?> entity = dispatch(router, "GET", "/orders/42", MediaType.TEXT_PLAIN);
+
+        assertEquals("order-42", entity.getEntity());
+        assertEquals(1, router.getRouteCache().getHits());
+    }
+
+    private MultivaluedMap<String, String> pathParameters() {
+        MultivaluedMap<String, String> parameters = new MultivaluedHashMap<>();
+        Mockito.doAnswer(i -> {
+            parameters.add(i.getArgument(0), i.getArgument(1));
+            return null;
+        }).when(builder).addParameter(any(), any());
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getPathParameters()).thenReturn(parameters);
+        when(builder.createUriInfo()).thenReturn(uriInfo);
+        return parameters;
+    }
+
+    @Test
+    public void should_return_406_if_resource_method_matched_but_not_acceptable() {
+        DefaultResourceRouter router = new DefaultResourceRouter(runtime, List.of(new RootResourceClass(Orders.class)));
+
+        OutboundResponse response = router.dispatch(request("GET", "/orders/pending", MediaType.APPLICATION_JSON), context);
+
+        assertEquals(406, response.getStatus());
+        assertEquals(404, router.dispatch(request("DELETE", "/orders/pending", MediaType.WILDCARD), context).getStatus());
+    }
+
+    private GenericEntity<?> dispatch(DefaultResourceRouter router, String method, String path, String accept) {
+        OutboundResponse response = router.dispatch(request(method, path, accept), context);
+        assertEquals(200, response.getStatus());
+        return (GenericEntity<?>) response.getEntity();
+    }
+
+    private HttpServletRequest request(String method, String path, String accept) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getServletPath()).thenReturn(path);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getHeaders(eq(HttpHeaders.ACCEPT))).thenAnswer(i -> new Vector<>(List.of(accept)).elements());
+        when(runtime.createUriInfoBuilder(same(request))).thenReturn(builder);
+        return request;
+    }
+
+    @jakarta.ws.rs.Path("/orders")
+    @jakarta.ws.rs.Produces(MediaType.TEXT_PLAIN)
+    static class Orders {
+        @jakarta.ws.rs.GET
+        @jakarta.ws.rs.Path("/pending")
+        public String pending() {
+            return "pending";
+        }
+
+        @jakarta.ws.rs.POST
+        @jakarta.ws.rs.Path("/pending")
+        public String create() {
+            return "created";
+        }
+
+        @jakarta.ws.rs.GET
+        @jakarta.ws.rs.Path("/{id}")
+        public String order(@jakarta.ws.rs.PathParam("id") String id) {
+            return "order-" + id;
+        }
+    }
+
     private ResourceRouter.RootResource rootResource(UriTemplate uriTemplate) {
         ResourceRouter.RootResource unmatched = mock(ResourceRouter.RootResource.class);
         when(unmatched.getUriTemplate()).thenReturn(uriTemplate);
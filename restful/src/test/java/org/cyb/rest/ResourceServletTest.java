@@ -1,6 +1,10 @@
 package org.cyb.rest;
 
+import jakarta.servlet.AsyncContext;
 import jakarta.servlet.Servlet;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.container.ResourceContext;
 import jakarta.ws.rs.core.*;
@@ -14,6 +18,8 @@ import org.junit.jupiter.api.TestFactory;
 import org.junit.jupiter.api.function.Executable;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
@@ -22,14 +28,35 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class ResourceServletTest extends ServletTest {
@@ -39,11 +66,13 @@ class ResourceServletTest extends ServletTest {
     private Providers providers;
 
     private OutboundResponseBuilder response;
+    private RuntimeDelegate delegate;
+    private ResourceServlet servlet;
 
     @BeforeEach
     public void before() {
         response = new OutboundResponseBuilder();
-        RuntimeDelegate delegate = Mockito.mock(RuntimeDelegate.class);
+        delegate = Mockito.mock(RuntimeDelegate.class);
         RuntimeDelegate.setInstance(delegate);
         when(delegate.createHeaderDelegate(eq(NewCookie.class)))
                 .thenReturn(new RuntimeDelegate.HeaderDelegate<>() {
@@ -71,7 +100,8 @@ class ResourceServletTest extends ServletTest {
         when(runtime.createResourceContext(any(), any())).thenReturn(resourceContext);
         when(runtime.getProviders()).thenReturn(providers);
 
-        return new ResourceServlet(runtime);
+        servlet = new ResourceServlet(runtime);
+        return servlet;
     }
 
     //TODO: use status code as http status
@@ -97,6 +127,185 @@ class ResourceServletTest extends ServletTest {
 
     }
 
+    @Test
+    public void should_create_header_delegate_once_per_value_class() throws Exception {
+        response.status(Response.Status.NOT_MODIFIED)
+                .headers("Set-Cookie", new NewCookie.Builder("SESSION_ID").value("session").build(),
+                        new NewCookie.Builder("USER_ID").value("user").build()).returnFrom(router);
+
+        get("/test");
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertArrayEquals(new String[]{"SESSION_ID=session", "USER_ID=user"},
+                httpResponse.headers().allValues("Set-Cookie").toArray(String[]::new));
+        verify(delegate, times(1)).createHeaderDelegate(eq(NewCookie.class));
+    }
+
+    @Test
+    public void should_write_pre_encoded_header_without_header_delegate() throws Exception {
+        response.status(Response.Status.NOT_MODIFIED)
+                .headers(HttpHeaders.CACHE_CONTROL, EncodedHeader.of("no-cache")).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals("no-cache", httpResponse.headers().firstValue(HttpHeaders.CACHE_CONTROL).get());
+        verify(delegate, never()).createHeaderDelegate(any());
+    }
+
+    @Test
+    public void should_respond_when_completion_stage_completes() throws Exception {
+        CompletableFuture<Object> stage = new CompletableFuture<>();
+        OutboundResponse resumed = new OutboundResponseBuilder().status(Response.Status.ACCEPTED)
+                .entity(new GenericEntity<>("resumed", String.class), new Annotation[0]).build();
+        response.entity(new GenericEntity<>(stage, CompletableFuture.class), new Annotation[0]).returnFrom(router);
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> stage.complete(resumed));
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.ACCEPTED.getStatusCode(), httpResponse.statusCode());
+        assertEquals("resumed", httpResponse.body());
+    }
+
+    @Test
+    public void should_map_exception_completing_stage() throws Exception {
+        CompletableFuture<Object> stage = new CompletableFuture<>();
+        response.entity(new GenericEntity<>(stage, CompletableFuture.class), new Annotation[0]).returnFrom(router);
+        when(providers.getExceptionMapper(eq(IllegalArgumentException.class)))
+                .thenReturn(exception -> new OutboundResponseBuilder().status(Response.Status.FORBIDDEN).build());
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> stage.completeExceptionally(new IllegalArgumentException()));
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.FORBIDDEN.getStatusCode(), httpResponse.statusCode());
+    }
+
+    @Test
+    public void should_map_checked_exception_by_its_own_exception_mapper() throws Exception {
+        when(router.dispatch(any(), eq(resourceContext))).thenAnswer(invocation -> {
+            throw new IOException("disk failure");
+        });
+        when(providers.getExceptionMapper(eq(IOException.class)))
+                .thenReturn(exception -> new OutboundResponseBuilder().status(Response.Status.SERVICE_UNAVAILABLE).build());
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), httpResponse.statusCode());
+    }
+
+    @Test
+    public void should_respond_service_unavailable_if_suspended_response_timeout() throws Exception {
+        SuspendedResponse suspended = new SuspendedResponse();
+        suspended.setTimeout(100, TimeUnit.MILLISECONDS);
+        response.entity(new GenericEntity<>(suspended, SuspendedResponse.class), new Annotation[0]).returnFrom(router);
+        Response.ResponseBuilder builder = mock(Response.ResponseBuilder.class, Mockito.RETURNS_SELF);
+        OutboundResponse unavailable = new OutboundResponseBuilder().status(Response.Status.SERVICE_UNAVAILABLE).entity(null, new Annotation[0]).build();
+        when(builder.build()).thenReturn(unavailable);
+        when(delegate.createResponseBuilder()).thenReturn(builder);
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), httpResponse.statusCode());
+        assertTrue(suspended.isCancelled());
+    }
+
+    @Test
+    public void should_use_timeout_handler_of_suspended_response() throws Exception {
+        SuspendedResponse suspended = new SuspendedResponse();
+        suspended.setTimeout(100, TimeUnit.MILLISECONDS);
+        OutboundResponse resumed = new OutboundResponseBuilder().status(Response.Status.ACCEPTED).build();
+        suspended.setTimeoutHandler(asyncResponse -> asyncResponse.resume(resumed));
+        response.entity(new GenericEntity<>(suspended, SuspendedResponse.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.ACCEPTED.getStatusCode(), httpResponse.statusCode());
+        assertEquals("entity", httpResponse.body());
+    }
+
+    @Test
+    public void should_keep_response_suspended_if_timeout_handler_extends_timeout() throws Exception {
+        SuspendedResponse suspended = new SuspendedResponse();
+        suspended.setTimeout(100, TimeUnit.MILLISECONDS);
+        OutboundResponse resumed = new OutboundResponseBuilder().status(Response.Status.ACCEPTED).build();
+        suspended.setTimeoutHandler(asyncResponse -> {
+            asyncResponse.setTimeout(1, TimeUnit.SECONDS);
+            CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS).execute(() -> asyncResponse.resume(resumed));
+        });
+        response.entity(new GenericEntity<>(suspended, SuspendedResponse.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.ACCEPTED.getStatusCode(), httpResponse.statusCode());
+        assertFalse(suspended.isCancelled());
+    }
+
+    @Test
+    public void should_extend_timeout_set_after_response_suspended() throws Exception {
+        SuspendedResponse suspended = new SuspendedResponse();
+        suspended.setTimeout(100, TimeUnit.MILLISECONDS);
+        OutboundResponse resumed = new OutboundResponseBuilder().status(Response.Status.ACCEPTED).build();
+        CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS).execute(() -> suspended.setTimeout(1, TimeUnit.SECONDS));
+        CompletableFuture.delayedExecutor(250, TimeUnit.MILLISECONDS).execute(() -> suspended.resume(resumed));
+        response.entity(new GenericEntity<>(suspended, SuspendedResponse.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.ACCEPTED.getStatusCode(), httpResponse.statusCode());
+    }
+
+    @Test
+    public void should_dispatch_on_executor_from_runtime() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "dispatcher"));
+        try {
+            when(runtime.getDispatchExecutor()).thenReturn(Optional.of(executor));
+            OutboundResponse dispatched = new OutboundResponseBuilder().status(Response.Status.ACCEPTED).build();
+            List<String> threads = new ArrayList<>();
+            when(router.dispatch(any(), eq(resourceContext))).thenAnswer(invocation -> {
+                threads.add(Thread.currentThread().getName());
+                return dispatched;
+            });
+
+            HttpResponse<String> httpResponse = get("/test");
+
+            assertEquals(Response.Status.ACCEPTED.getStatusCode(), httpResponse.statusCode());
+            assertEquals("entity", httpResponse.body());
+            assertEquals(List.of("dispatcher"), threads);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void should_wait_for_completion_stage_returned_on_dispatch_executor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            when(runtime.getDispatchExecutor()).thenReturn(Optional.of(executor));
+            CompletableFuture<Object> stage = new CompletableFuture<>();
+            OutboundResponse resumed = new OutboundResponseBuilder().status(Response.Status.ACCEPTED).build();
+            response.entity(new GenericEntity<>(stage, CompletableFuture.class), new Annotation[0]).returnFrom(router);
+            CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> stage.complete(resumed));
+
+            HttpResponse<String> httpResponse = get("/test");
+
+            assertEquals(Response.Status.ACCEPTED.getStatusCode(), httpResponse.statusCode());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void should_map_exception_if_dispatch_executor_rejects_request() throws Exception {
+        when(runtime.getDispatchExecutor()).thenReturn(Optional.of(runnable -> {
+            throw new RejectedExecutionException();
+        }));
+        when(providers.getExceptionMapper(eq(RejectedExecutionException.class)))
+                .thenReturn(exception -> new OutboundResponseBuilder().status(Response.Status.SERVICE_UNAVAILABLE).build());
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), httpResponse.statusCode());
+    }
+
     //TODO: writer body using MessageBodyWriter
     @Test
     public void should_write_entity_to_http_response_using_message_body_writer() throws Exception {
@@ -107,6 +316,310 @@ class ResourceServletTest extends ServletTest {
         assertEquals("entity", httpResponse.body());
     }
 
+    @Test
+    public void should_drain_large_entity_through_write_listener() throws Exception {
+        String entity = "x".repeat(ResourceServlet.BufferChunkSize * 10 + 1);
+        response.entity(new GenericEntity<>(entity, String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(entity, httpResponse.body());
+        assertEquals(String.valueOf(entity.length()), httpResponse.headers().firstValue(HttpHeaders.CONTENT_LENGTH).get());
+    }
+
+    @Test
+    public void should_clear_timeout_of_started_async_context_before_draining_entity() throws Exception {
+        String entity = "x".repeat(ResourceServlet.BufferChunkSize * 2 + 1);
+        response.entity(new GenericEntity<>(entity, String.class), new Annotation[0]).returnFrom(router);
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse httpResponse = mock(HttpServletResponse.class);
+        AsyncContext async = mock(AsyncContext.class);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.isAsyncStarted()).thenReturn(true);
+        when(request.getAsyncContext()).thenReturn(async);
+        when(httpResponse.getOutputStream()).thenReturn(mock(ServletOutputStream.class));
+
+        servlet.service(request, httpResponse);
+
+        verify(request, never()).startAsync(any(), any());
+        verify(async).setTimeout(0);
+    }
+
+    @Test
+    public void should_return_buffers_to_pool_after_response_written() throws Exception {
+        String entity = "x".repeat(ResourceServlet.BufferChunkSize * 3);
+        response.entity(new GenericEntity<>(entity, String.class), new Annotation[0]).returnFrom(router);
+
+        get("/test");
+        get("/test");
+
+        for (int i = 0; i < 100 && servlet.getBufferPool().available() < 3; i++) Thread.sleep(10);
+        assertEquals(3, servlet.getBufferPool().available());
+    }
+
+    @Test
+    public void should_set_content_length_of_buffered_entity() throws Exception {
+        response.entity(new GenericEntity<>("entity", String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals("6", httpResponse.headers().firstValue(HttpHeaders.CONTENT_LENGTH).get());
+    }
+
+    @Test
+    public void should_write_path_entity_with_content_length_without_message_body_writer() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("report", ".txt"), "exported report");
+        try {
+            response.entity(new GenericEntity<>(file, Path.class), new Annotation[0]).returnFrom(router);
+
+            HttpResponse<String> httpResponse = get("/test");
+
+            assertEquals("exported report", httpResponse.body());
+            assertEquals("15", httpResponse.headers().firstValue(HttpHeaders.CONTENT_LENGTH).get());
+            verify(providers, never()).getMessageBodyWriter(eq(Path.class), any(), any(), any());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void should_write_file_entity() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("report", ".txt"), "exported report");
+        try {
+            response.entity(new GenericEntity<>(file.toFile(), File.class), new Annotation[0]).returnFrom(router);
+
+            HttpResponse<String> httpResponse = get("/test");
+
+            assertEquals("exported report", httpResponse.body());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void should_write_file_region_entity() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("report", ".txt"), "exported report");
+        try {
+            FileRegion region = FileRegion.of(FileChannel.open(file, StandardOpenOption.READ), 9, 6);
+            response.entity(new GenericEntity<>(region, FileRegion.class), new Annotation[0]).returnFrom(router);
+
+            HttpResponse<String> httpResponse = get("/test");
+
+            assertEquals("report", httpResponse.body());
+            assertEquals("6", httpResponse.headers().firstValue(HttpHeaders.CONTENT_LENGTH).get());
+            for (int i = 0; i < 100 && region.getChannel().isOpen(); i++) Thread.sleep(10);
+            assertFalse(region.getChannel().isOpen());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void should_respond_partial_content_for_single_range() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("report", ".txt"), "exported report");
+        try {
+            response.entity(new GenericEntity<>(file, Path.class), new Annotation[0]).returnFrom(router);
+
+            HttpResponse<String> httpResponse = get("/test", "Range", "bytes=9-");
+
+            assertEquals(Response.Status.PARTIAL_CONTENT.getStatusCode(), httpResponse.statusCode());
+            assertEquals("report", httpResponse.body());
+            assertEquals("bytes 9-14/15", httpResponse.headers().firstValue("Content-Range").get());
+            assertEquals("bytes", httpResponse.headers().firstValue("Accept-Ranges").get());
+            assertEquals(1, servlet.getMappedFiles().size());
+        } finally {
+            servlet.getMappedFiles().clear();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void should_respond_multipart_byteranges_for_multiple_ranges() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("report", ".txt"), "exported report");
+        try {
+            response.entity(new GenericEntity<>(file, Path.class), new Annotation[0]).returnFrom(router);
+
+            HttpResponse<String> httpResponse = get("/test", "Range", "bytes=0-7,-6");
+
+            assertEquals(Response.Status.PARTIAL_CONTENT.getStatusCode(), httpResponse.statusCode());
+            String type = httpResponse.headers().firstValue(HttpHeaders.CONTENT_TYPE).get();
+            assertTrue(type.startsWith("multipart/byteranges; boundary="));
+            String boundary = type.substring(type.indexOf('=') + 1);
+            assertEquals("\r\n--" + boundary + "\r\nContent-Range: bytes 0-7/15\r\n\r\nexported"
+                    + "\r\n--" + boundary + "\r\nContent-Range: bytes 9-14/15\r\n\r\nreport"
+                    + "\r\n--" + boundary + "--\r\n", httpResponse.body());
+        } finally {
+            servlet.getMappedFiles().clear();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void should_respond_range_not_satisfiable_if_no_range_overlaps_file() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("report", ".txt"), "exported report");
+        try {
+            response.entity(new GenericEntity<>(file, Path.class), new Annotation[0]).returnFrom(router);
+
+            HttpResponse<String> httpResponse = get("/test", "Range", "bytes=15-");
+
+            assertEquals(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE.getStatusCode(), httpResponse.statusCode());
+            assertEquals("bytes */15", httpResponse.headers().firstValue("Content-Range").get());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void should_respond_whole_file_if_range_validator_does_not_match() throws Exception {
+        Path file = Files.writeString(Files.createTempFile("report", ".txt"), "exported report");
+        try {
+            response.headers(HttpHeaders.ETAG, EncodedHeader.of("\"v2\""))
+                    .entity(new GenericEntity<>(file, Path.class), new Annotation[0]).returnFrom(router);
+
+            HttpResponse<String> httpResponse = get("/test", "Range", "bytes=9-", "If-Range", "\"v1\"");
+
+            assertEquals(Response.Status.OK.getStatusCode(), httpResponse.statusCode());
+            assertEquals("exported report", httpResponse.body());
+        } finally {
+            servlet.getMappedFiles().clear();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void should_gzip_entity_if_accepted_and_large_enough() throws Exception {
+        when(runtime.getCompression()).thenReturn(Optional.of(Compression.of(Deflater.DEFAULT_COMPRESSION, Map.of("text/plain", 16))));
+        String entity = "compressible ".repeat(100);
+        response.entity(new GenericEntity<>(entity, String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<byte[]> httpResponse = get("/test", HttpResponse.BodyHandlers.ofByteArray(), HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertEquals("gzip", httpResponse.headers().firstValue(HttpHeaders.CONTENT_ENCODING).get());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, httpResponse.headers().firstValue(HttpHeaders.VARY).get());
+        assertEquals(String.valueOf(httpResponse.body().length), httpResponse.headers().firstValue(HttpHeaders.CONTENT_LENGTH).get());
+        assertTrue(httpResponse.body().length < entity.length());
+        assertEquals(entity, new String(new GZIPInputStream(new ByteArrayInputStream(httpResponse.body())).readAllBytes()));
+    }
+
+    @Test
+    public void should_deflate_entity_if_preferred() throws Exception {
+        when(runtime.getCompression()).thenReturn(Optional.of(Compression.of(Deflater.BEST_SPEED, Map.of("text/*", 16))));
+        String entity = "compressible ".repeat(100);
+        response.entity(new GenericEntity<>(entity, String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<byte[]> httpResponse = get("/test", HttpResponse.BodyHandlers.ofByteArray(), HttpHeaders.ACCEPT_ENCODING, "gzip;q=0.5, deflate");
+
+        assertEquals("deflate", httpResponse.headers().firstValue(HttpHeaders.CONTENT_ENCODING).get());
+        assertEquals(entity, new String(new InflaterInputStream(new ByteArrayInputStream(httpResponse.body())).readAllBytes()));
+    }
+
+    @Test
+    public void should_reuse_deflater_across_responses() throws Exception {
+        when(runtime.getCompression()).thenReturn(Optional.of(Compression.of(Deflater.DEFAULT_COMPRESSION, Map.of("text/plain", 16))));
+        response.entity(new GenericEntity<>("compressible ".repeat(100), String.class), new Annotation[0]).returnFrom(router);
+
+        get("/test", HttpResponse.BodyHandlers.ofByteArray(), HttpHeaders.ACCEPT_ENCODING, "gzip");
+        get("/test", HttpResponse.BodyHandlers.ofByteArray(), HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertEquals(1, servlet.getDeflaterPool().available());
+    }
+
+    @Test
+    public void should_not_compress_entity_below_minimum_size_but_vary_on_accept_encoding() throws Exception {
+        when(runtime.getCompression()).thenReturn(Optional.of(Compression.of(Deflater.DEFAULT_COMPRESSION, Map.of("text/plain", 1024))));
+        response.entity(new GenericEntity<>("entity", String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test", HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertEquals("entity", httpResponse.body());
+        assertTrue(httpResponse.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, httpResponse.headers().firstValue(HttpHeaders.VARY).get());
+    }
+
+    @Test
+    public void should_merge_accept_encoding_into_existing_vary_header() throws Exception {
+        when(runtime.getCompression()).thenReturn(Optional.of(Compression.of(Deflater.DEFAULT_COMPRESSION, Map.of("text/plain", 1024))));
+        response.headers(HttpHeaders.VARY, EncodedHeader.of(HttpHeaders.ACCEPT_LANGUAGE))
+                .entity(new GenericEntity<>("entity", String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test", HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertEquals(List.of(HttpHeaders.ACCEPT_LANGUAGE + ", " + HttpHeaders.ACCEPT_ENCODING), httpResponse.headers().allValues(HttpHeaders.VARY));
+    }
+
+    @Test
+    public void should_not_duplicate_accept_encoding_already_in_vary_header() throws Exception {
+        when(runtime.getCompression()).thenReturn(Optional.of(Compression.of(Deflater.DEFAULT_COMPRESSION, Map.of("text/plain", 1024))));
+        response.headers(HttpHeaders.VARY, EncodedHeader.of("accept-encoding, Accept-Language"))
+                .entity(new GenericEntity<>("entity", String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test", HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertEquals(List.of("accept-encoding, Accept-Language"), httpResponse.headers().allValues(HttpHeaders.VARY));
+    }
+
+    @Test
+    public void should_not_compress_entity_already_encoded_or_of_other_media_type() throws Exception {
+        when(runtime.getCompression()).thenReturn(Optional.of(Compression.of(Deflater.DEFAULT_COMPRESSION, Map.of("application/json", 16))));
+        String entity = "compressible ".repeat(100);
+        response.entity(new GenericEntity<>(entity, String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test", HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertEquals(entity, httpResponse.body());
+        assertTrue(httpResponse.headers().firstValue(HttpHeaders.VARY).isEmpty());
+    }
+
+    @Test
+    public void should_not_compress_if_compression_not_enabled() throws Exception {
+        String entity = "compressible ".repeat(100);
+        response.entity(new GenericEntity<>(entity, String.class), new Annotation[0]).returnFrom(router);
+
+        HttpResponse<String> httpResponse = get("/test", HttpHeaders.ACCEPT_ENCODING, "gzip");
+
+        assertEquals(entity, httpResponse.body());
+        assertTrue(httpResponse.headers().firstValue(HttpHeaders.CONTENT_ENCODING).isEmpty());
+    }
+
+    @Test
+    public void should_resolve_message_body_writer_once_for_same_entity_type() throws Exception {
+        response.entity(new GenericEntity<>("entity", String.class), new Annotation[0])
+                .returnFrom(router);
+
+        get("/test");
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals("entity", httpResponse.body());
+        verify(providers, times(1)).getMessageBodyWriter(any(), any(), any(), any());
+    }
+
+    @Test
+    public void should_key_message_body_writers_by_equal_annotations_in_distinct_arrays() throws Exception {
+        Method method = getClass().getMethod("should_key_message_body_writers_by_equal_annotations_in_distinct_arrays");
+        Annotation[] annotations = method.getAnnotations();
+
+        ResourceServlet.WriterKey key = new ResourceServlet.WriterKey(String.class, String.class, annotations, MediaType.TEXT_PLAIN_TYPE);
+        ResourceServlet.WriterKey same = new ResourceServlet.WriterKey(String.class, String.class, method.getAnnotations(), MediaType.TEXT_PLAIN_TYPE);
+
+        assertNotSame(annotations, method.getAnnotations());
+        assertEquals(key, same);
+        assertEquals(key.hashCode(), same.hashCode());
+        assertNotEquals(key, new ResourceServlet.WriterKey(String.class, String.class, new Annotation[0], MediaType.TEXT_PLAIN_TYPE));
+    }
+
+    @Test
+    public void should_resolve_exception_mapper_once_for_same_exception_type() throws Exception {
+        when(router.dispatch(any(), eq(resourceContext))).thenThrow(RuntimeException.class);
+        when(providers.getExceptionMapper(eq(RuntimeException.class)))
+                .thenReturn(exception -> response.status(Response.Status.FORBIDDEN).build());
+
+        get("/test");
+        HttpResponse<String> httpResponse = get("/test");
+
+        assertEquals(Response.Status.FORBIDDEN.getStatusCode(), httpResponse.statusCode());
+        verify(providers, times(1)).getExceptionMapper(eq(RuntimeException.class));
+    }
+
     @Test
     public void should_use_response_from_web_application_exception() throws Exception {
         response.status(Response.Status.FORBIDDEN)
@@ -169,6 +682,19 @@ class ResourceServletTest extends ServletTest {
     }
 
 
+    private HttpResponse<String> get(String path, String... headers) {
+        return get(path, HttpResponse.BodyHandlers.ofString(), headers);
+    }
+
+    private <T> HttpResponse<T> get(String path, HttpResponse.BodyHandler<T> body, String... headers) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(path(path)).headers(headers).GET().build();
+            return HttpClient.newHttpClient().send(request, body);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
     @TestFactory
     public List<DynamicTest> RespondWhenExtensionMissing() {
         List tests = new ArrayList<>();
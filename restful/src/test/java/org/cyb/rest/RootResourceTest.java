@@ -1,18 +1,33 @@
 package org.cyb.rest;
 
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotSupportedException;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.ResourceContext;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.GenericEntity;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.RuntimeDelegate;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.Mockito;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class RootResourceTest {
 
@@ -25,13 +40,217 @@ public class RootResourceTest {
     }
 
     @ParameterizedTest
-    @CsvSource({"GET,/messages/hello,Messages.hello","GET,/messages/ah,Messages.ah"})
+    @CsvSource({"GET,/hello,Messages.hello","GET,/ah,Messages.ah"})
     public void should_match_resource_method(String httpMethod, String path, String resourceMethod) {
         ResourceRouter.RootResource resource = new RootResourceClass(Messages.class);
         ResourceRouter.ResourceMethod method = resource.matches(path, httpMethod, new String[]{MediaType.TEXT_PLAIN}, Mockito.mock(UriInfoBuilder.class)).get();
         assertEquals(resourceMethod, method.toString());
     }
 
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {"GET|text/plain|Negotiated.asText", "GET|application/json|Negotiated.asJson",
+            "GET|text/plain;q=0.5, application/json|Negotiated.asJson", "GET|application/*|Negotiated.asJson",
+            "GET|TEXT/PLAIN|Negotiated.asText", "POST|*/*|Negotiated.create"})
+    public void should_select_resource_method_by_http_method_and_accept(String httpMethod, String accept, String resourceMethod) {
+        ResourceRouter.RootResource resource = new RootResourceClass(Negotiated.class);
+        ResourceRouter.ResourceMethod method = resource.matches("/item", httpMethod, new String[]{accept}, Mockito.mock(UriInfoBuilder.class)).get();
+        assertEquals(resourceMethod, method.toString());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {"GET|image/png", "GET|text/plain;q=0", "DELETE|*/*"})
+    public void should_not_match_resource_method_if_http_method_or_accept_not_supported(String httpMethod, String accept) {
+        ResourceRouter.RootResource resource = new RootResourceClass(Negotiated.class);
+        assertTrue(resource.matches("/item", httpMethod, new String[]{accept}, Mockito.mock(UriInfoBuilder.class)).isEmpty());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {"text/plain|id", "application/json|name"})
+    public void should_bind_path_parameters_of_tied_method_selected_by_accept(String accept, String parameter) {
+        ResourceRouter.RootResource resource = new RootResourceClass(Negotiated.class);
+        ResourceRouter.ResourceMethod method = resource.matches("/entry/42", "GET", new String[]{accept}, Mockito.mock(UriInfoBuilder.class)).get();
+        assertEquals(Map.of(parameter, "42"), method.getPathParameters());
+    }
+
+    @Test
+    public void should_call_resource_method_on_resource_from_context() throws Exception {
+        ResourceContext context = Mockito.mock(ResourceContext.class);
+        Mockito.when(context.getResource(Messages.class)).thenReturn(new Messages());
+        ResourceRouter.ResourceMethod method = new RootResourceClass.DefaultResourceMethod(Messages.class, Messages.class.getMethod("hello"));
+
+        GenericEntity<?> entity = method.call(context, Mockito.mock(UriInfoBuilder.class));
+
+        assertEquals("hello", entity.getEntity());
+        assertEquals(String.class, entity.getType());
+    }
+
+    @Test
+    public void should_convert_parameters_and_keep_generic_return_type() throws Exception {
+        ResourceContext context = Mockito.mock(ResourceContext.class);
+        Mockito.when(context.getResource(Users.class)).thenReturn(new Users());
+        UriInfo uriInfo = Mockito.mock(UriInfo.class);
+        Mockito.when(uriInfo.getPathParameters()).thenReturn(new MultivaluedHashMap<>(Map.of("id", "john")));
+        Mockito.when(uriInfo.getQueryParameters()).thenReturn(new MultivaluedHashMap<>(Map.of("tag", "admin")));
+        UriInfoBuilder builder = Mockito.mock(UriInfoBuilder.class);
+        Mockito.when(builder.createUriInfo()).thenReturn(uriInfo);
+        ResourceRouter.ResourceMethod method = new RootResourceClass.DefaultResourceMethod(Users.class,
+                Users.class.getMethod("tags", String.class, String.class));
+
+        GenericEntity<?> entity = method.call(context, builder);
+
+        assertEquals(List.of("john", "admin"), entity.getEntity());
+        assertEquals(Users.class.getMethod("tags", String.class, String.class).getGenericReturnType(), entity.getType());
+    }
+
+    @Test
+    public void should_return_null_entity_if_resource_method_returns_null() throws Exception {
+        ResourceContext context = Mockito.mock(ResourceContext.class);
+        Mockito.when(context.getResource(Users.class)).thenReturn(new Users());
+        ResourceRouter.ResourceMethod method = new RootResourceClass.DefaultResourceMethod(Users.class, Users.class.getMethod("nothing"));
+
+        assertNull(method.call(context, Mockito.mock(UriInfoBuilder.class)));
+    }
+
+    @Test
+    public void should_fail_request_if_parameter_source_unknown() throws Exception {
+        RuntimeDelegate delegate = Mockito.mock(RuntimeDelegate.class);
+        Response.ResponseBuilder responseBuilder = Mockito.mock(Response.ResponseBuilder.class, Mockito.RETURNS_SELF);
+        Response response = Mockito.mock(Response.class);
+        Mockito.when(response.getStatusInfo()).thenReturn(Response.Status.UNSUPPORTED_MEDIA_TYPE);
+        Mockito.when(responseBuilder.build()).thenReturn(response);
+        Mockito.when(delegate.createResponseBuilder()).thenReturn(responseBuilder);
+        RuntimeDelegate previous = previousDelegate();
+        RuntimeDelegate.setInstance(delegate);
+        try {
+            ResourceContext context = Mockito.mock(ResourceContext.class);
+            Mockito.when(context.getResource(Users.class)).thenReturn(new Users());
+            ResourceRouter.ResourceMethod method = new RootResourceClass.DefaultResourceMethod(Users.class,
+                    Users.class.getMethod("unknown", Object.class));
+
+            assertThrows(NotSupportedException.class, () -> method.call(context, Mockito.mock(UriInfoBuilder.class)));
+        } finally {
+            RuntimeDelegate.setInstance(previous);
+        }
+    }
+
+    private static RuntimeDelegate previousDelegate() {
+        try {
+            return RuntimeDelegate.getInstance();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Test
+    public void should_return_suspended_response_as_entity_if_async_response_injected() throws Exception {
+        ResourceContext context = Mockito.mock(ResourceContext.class);
+        Mockito.when(context.getResource(Jobs.class)).thenReturn(new Jobs());
+        ResourceRouter.ResourceMethod method = new RootResourceClass.DefaultResourceMethod(Jobs.class,
+                Jobs.class.getMethod("suspended", AsyncResponse.class));
+
+        GenericEntity<?> entity = method.call(context, Mockito.mock(UriInfoBuilder.class));
+
+        AsyncResponse response = assertInstanceOf(AsyncResponse.class, entity.getEntity());
+        assertFalse(response.isSuspended());
+        assertEquals("done", ((CompletionStage<?>) entity.getEntity()).toCompletableFuture().join());
+    }
+
+    @Test
+    public void should_keep_completion_stage_as_entity_with_generic_return_type() throws Exception {
+        ResourceContext context = Mockito.mock(ResourceContext.class);
+        Mockito.when(context.getResource(Jobs.class)).thenReturn(new Jobs());
+        ResourceRouter.ResourceMethod method = new RootResourceClass.DefaultResourceMethod(Jobs.class, Jobs.class.getMethod("stage"));
+
+        GenericEntity<?> entity = method.call(context, Mockito.mock(UriInfoBuilder.class));
+
+        assertInstanceOf(CompletionStage.class, entity.getEntity());
+        assertEquals(Jobs.class.getMethod("stage").getGenericReturnType(), entity.getType());
+    }
+
+    @Test
+    public void should_not_accept_suspended_parameter_other_than_async_response() {
+        assertThrows(IllegalArgumentException.class, () -> new RootResourceClass.DefaultResourceMethod(Jobs.class,
+                Jobs.class.getMethod("unsupported", String.class)));
+    }
+
+    @Path("/jobs")
+    static class Jobs {
+        @GET
+        @Path("/suspended")
+        public void suspended(@Suspended AsyncResponse response) {
+            response.resume("done");
+        }
+
+        @GET
+        @Path("/stage")
+        public CompletionStage<String> stage() {
+            return CompletableFuture.completedFuture("done");
+        }
+
+        @GET
+        @Path("/unsupported")
+        public void unsupported(@Suspended String response) {
+        }
+    }
+
+    @Path("/negotiated")
+    @Produces(MediaType.WILDCARD)
+    static class Negotiated {
+        @GET
+        @Path("/item")
+        @Produces(MediaType.TEXT_PLAIN)
+        public String asText() {
+            return "text";
+        }
+
+        @GET
+        @Path("/item")
+        @Produces(MediaType.APPLICATION_JSON)
+        public String asJson() {
+            return "json";
+        }
+
+        @POST
+        @Path("/item")
+        public String create() {
+            return "created";
+        }
+
+        @GET
+        @Path("/entry/{id}")
+        @Produces(MediaType.TEXT_PLAIN)
+        public String entryAsText(@PathParam("id") String id) {
+            return id;
+        }
+
+        @GET
+        @Path("/entry/{name}")
+        @Produces(MediaType.APPLICATION_JSON)
+        public String entryAsJson(@PathParam("name") String name) {
+            return name;
+        }
+    }
+
+    @Path("/users")
+    static class Users {
+        @GET
+        @Path("/{id}/tags")
+        public List<String> tags(@PathParam("id") String id, @QueryParam("tag") String tag) {
+            return List.of(id, tag);
+        }
+
+        @GET
+        @Path("/none")
+        public String nothing() {
+            return null;
+        }
+
+        @GET
+        @Path("/unknown")
+        public String unknown(Object value) {
+            return null;
+        }
+    }
 
     @Path("/messages")
     static class Messages {
@@ -0,0 +1,52 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class RouteIndexTest {
+
+    @Test
+    public void should_only_return_templates_sharing_literal_prefix() {
+        List<UriTemplate> templates = IntStream.range(0, 400).<UriTemplate>mapToObj(i -> new PathTemplate("/resources" + i)).toList();
+        RouteIndex<UriTemplate> index = new RouteIndex<>(templates, Function.identity());
+
+        assertEquals(List.of(templates.get(42)), index.candidates("/resources42/items/1"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"/users/1,/users", "/users/1,/users/{id}", "/users/1,/{resources}", "/users/1/orders,/users/{id}/orders",
+            "/users/1,/users/{id:[0-9]+}", "/users.json,/users.json", "/users/1/orders,/users"})
+    public void should_keep_template_as_candidate_if_path_matched(String path, String template) {
+        PathTemplate pathTemplate = new PathTemplate(template);
+        RouteIndex<UriTemplate> index = new RouteIndex<>(List.of(pathTemplate), Function.identity());
+
+        assertTrue(pathTemplate.match(path).isPresent());
+        assertTrue(index.candidates(path).contains(pathTemplate));
+    }
+
+    @Test
+    public void should_keep_declared_order_of_candidates() {
+        List<UriTemplate> templates = List.of(new PathTemplate("/users/{id}"), new PathTemplate("/orders"),
+                new PathTemplate("/users"), new PathTemplate("/{resources}/1"));
+        RouteIndex<UriTemplate> index = new RouteIndex<>(templates, Function.identity());
+
+        assertEquals(List.of(templates.get(0), templates.get(2), templates.get(3)), index.candidates("/users/1"));
+    }
+
+    @Test
+    public void should_always_return_template_without_known_structure() {
+        UriTemplate template = mock(UriTemplate.class);
+        RouteIndex<UriTemplate> index = new RouteIndex<>(List.of(new PathTemplate("/users"), template), Function.identity());
+
+        assertTrue(index.candidates("/orders").contains(template));
+    }
+}
@@ -25,7 +25,9 @@ public abstract class ServletTest {
         server.addConnector(connector);
 
         ServletContextHandler handler = new ServletContextHandler(server, "/");
-        handler.addServlet(new ServletHolder(getServlet()), "/");
+        ServletHolder holder = new ServletHolder(getServlet());
+        holder.setAsyncSupported(true);
+        handler.addServlet(holder, "/");
         server.setHandler(handler);
         server.start();
     }
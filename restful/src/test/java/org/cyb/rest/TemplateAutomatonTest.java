@@ -0,0 +1,65 @@
+package org.cyb.rest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateAutomatonTest {
+    private final List<UriTemplate> templates = List.of(
+            new PathTemplate("/users"),
+            new PathTemplate("/users/{id}"),
+            new PathTemplate("/users/{id}/orders"),
+            new PathTemplate("/{resources}/1234567890/{action}"),
+            new PathTemplate("/users/{id}/order"),
+            new PathTemplate("/users/{id:[0-9]+}"),
+            new PathTemplate("/users/1234"),
+            new PathTemplate("/orders/{id}/{item}"),
+            new PathTemplate("/{resources}"));
+
+    private final TemplateAutomaton<UriTemplate> automaton = new TemplateAutomaton<>(templates, Function.identity());
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/users", "/users/1", "/users/1234", "/users/john", "/users/1/orders", "/users/1/orders/2",
+            "/users/1234567890/order", "/users/1234567890/close", "/orders/1/2", "/orders/1/2/3", "/orders",
+            "/messages/hello", "/users/", "//users", "/", "", "users"})
+    public void should_choose_same_template_as_per_template_matching(String path) {
+        Optional<Integer> expected = IntStream.range(0, templates.size()).boxed()
+                .filter(i -> templates.get(i).match(path).isPresent())
+                .min(Comparator.comparing(i -> templates.get(i).match(path).get()));
+
+        Optional<TemplateAutomaton.Match<UriTemplate>> actual = automaton.match(path);
+
+        assertEquals(expected, actual.map(TemplateAutomaton.Match::template));
+        expected.ifPresent(i -> {
+            UriTemplate.MatchResult result = templates.get(i).match(path).get();
+            assertEquals(result.getMatched(), actual.get().result().getMatched());
+            assertEquals(result.getRemaining(), actual.get().result().getRemaining());
+            assertEquals(result.getMatchedPathParameters(), actual.get().result().getMatchedPathParameters());
+        });
+    }
+
+    @Test
+    public void should_record_capture_offsets_of_winning_template() {
+        TemplateAutomaton.Match<UriTemplate> match = automaton.match("/orders/12/345/detail").get();
+
+        assertEquals(7, match.template());
+        assertArrayEquals(new int[]{8, 10, 11, 14}, ((TemplateAutomaton.Captures) match.result()).getOffsets());
+    }
+
+    @Test
+    public void should_prefer_earlier_template_if_fallback_ties_with_automaton() {
+        List<UriTemplate> fallbackFirst = List.of(new PathTemplate("/a{x}/c"), new PathTemplate("/ab/{y}"));
+        List<UriTemplate> automatonFirst = List.of(new PathTemplate("/ab/{y}"), new PathTemplate("/a{x}/c"));
+
+        assertEquals(0, new TemplateAutomaton<>(fallbackFirst, Function.identity()).match("/ab/c").get().template());
+        assertEquals(0, new TemplateAutomaton<>(automatonFirst, Function.identity()).match("/ab/c").get().template());
+    }
+}